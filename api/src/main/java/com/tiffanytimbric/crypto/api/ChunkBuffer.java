@@ -0,0 +1,91 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A reference counted buffer borrowed from a {@link ChunkBufferPool}.  It
+ * starts out with the one reference of whoever acquired it, which gets passed
+ * from stage to stage along with the buffer.  Releasing that reference hands
+ * the buffer back to the pool, and releasing it again fails rather than
+ * letting the pool hand the buffer out twice.
+ * <p>
+ * A buffer read from a stream also records where in the stream its chunks
+ * sit, which a {@link SessionCryptosystem} authenticates along with them.
+ */
+public final class ChunkBuffer {
+
+    private final ChunkBufferPool pool;
+    private final ByteBuffer buffer;
+    private final AtomicInteger refCount = new AtomicInteger();
+    private long firstChunkIndex = 0;
+    private boolean holdsLastChunk = false;
+
+
+    ChunkBuffer( @Nonnull final ChunkBufferPool pool, @Nonnull final ByteBuffer buffer ) {
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the underlying buffer.  Only holders of a reference may use it.
+     */
+    @Nonnull
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Drops the reference, handing the buffer back to its pool.
+     */
+    public void release() {
+        final int remaining = refCount.decrementAndGet();
+        if ( remaining == 0 ) {
+            pool.recycle( this );
+        }
+        else if ( remaining < 0 ) {
+            refCount.getAndIncrement();
+
+            throw new IllegalStateException( String.format(
+                "Chunk buffer released more than once.  Reference Count: %d", remaining + 1
+            ) );
+        }
+    }
+
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Records the stream index of the buffer's first chunk, and whether the
+     * buffer holds the stream's last chunk.
+     */
+    @Nonnull
+    public ChunkBuffer setStreamPosition( long firstChunkIndex, boolean holdsLastChunk ) {
+        this.firstChunkIndex = firstChunkIndex;
+        this.holdsLastChunk = holdsLastChunk;
+
+        return this;
+    }
+
+    public long firstChunkIndex() {
+        return firstChunkIndex;
+    }
+
+    public boolean holdsLastChunk() {
+        return holdsLastChunk;
+    }
+
+    @Nonnull
+    ChunkBuffer reset() {
+        buffer.clear();
+        refCount.set( 1 );
+        firstChunkIndex = 0;
+        holdsLastChunk = false;
+
+        return this;
+    }
+
+}
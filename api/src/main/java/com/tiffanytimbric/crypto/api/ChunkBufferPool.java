@@ -0,0 +1,86 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements a bounded pool of equally sized, reference counted
+ * chunk buffers, shared by whatever reads, encrypts or decrypts, and writes a
+ * stream's chunks.  Chunks get read straight into pooled buffers, processed
+ * into pooled buffers, and the buffers go back to the pool once their last
+ * holder releases them, so steady state processing allocates no chunk
+ * buffers at all.
+ * <p>
+ * The buffers may be heap buffers or direct, off-heap, ones.  Direct buffers
+ * keep the chunks out of the garbage collected heap entirely and get handed
+ * to channels without an intermediate copy, but have no backing array.
+ * <p>
+ * Acquiring from an empty pool allocates a new buffer.  Recycling into a full
+ * pool leaves the buffer to the garbage collector.
+ */
+public final class ChunkBufferPool {
+
+    private final int bufferCapacity;
+    private final boolean direct;
+    private final BlockingQueue<ChunkBuffer> buffers;
+
+
+    public ChunkBufferPool( int bufferCapacity, int maxPooledBuffers, boolean direct ) {
+        if ( bufferCapacity < 1 ) {
+            throw new IllegalArgumentException( String.format(
+                "Unsupported buffer capacity.  Buffer Capacity: %d, Supported Min Buffer Capacity: 1", bufferCapacity
+            ) );
+        }
+
+        this.bufferCapacity = bufferCapacity;
+        this.direct = direct;
+        this.buffers = new ArrayBlockingQueue<>( Math.max( 1, maxPooledBuffers ) );
+    }
+
+    /**
+     * @return a pool whose buffers each hold chunksPerBuffer of the larger of
+     * the cryptosystem's encryption and decryption chunks.
+     */
+    @Nonnull
+    public static ChunkBufferPool forCryptosystem(
+        @Nonnull final Cryptosystem cryptosystem, int chunksPerBuffer, int maxPooledBuffers, boolean direct
+    ) {
+        final int chunkSize = Math.max( cryptosystem.getChunkSizeEncrypt(), cryptosystem.getChunkSizeDecrypt() );
+
+        return new ChunkBufferPool(
+            Math.multiplyExact( chunkSize, Math.max( 1, chunksPerBuffer ) ), maxPooledBuffers, direct
+        );
+    }
+
+    /**
+     * @return a cleared buffer, with a reference count of one, whose capacity
+     * equals the pool's buffer capacity.
+     */
+    @Nonnull
+    public ChunkBuffer acquire() {
+        ChunkBuffer chunkBuffer = buffers.poll();
+        if ( chunkBuffer == null ) {
+            chunkBuffer = new ChunkBuffer(
+                this, direct ? ByteBuffer.allocateDirect( bufferCapacity ) : ByteBuffer.allocate( bufferCapacity )
+            );
+        }
+
+        return chunkBuffer.reset();
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    void recycle( @Nonnull final ChunkBuffer chunkBuffer ) {
+        buffers.offer( chunkBuffer );
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * This class implements an input stream which reads the underlying stream in
+ * chunks of the size the cryptosystem expects for the operation, encrypts or
+ * decrypts each chunk, then serves the result.  Only one processed chunk is
+ * buffered at a time.
+ * <p>
+ * When given an executor, chunks get read ahead and processed in the
+ * background with at most the given number of chunks in flight.
+ * <p>
+ * A {@link SessionCryptosystem} gets a session started per stream.  When
+ * encrypting, its header gets served ahead of the first chunk.  When
+ * decrypting, the header gets read ahead of the first chunk.  A session's
+ * chunks get read one chunk ahead, so the last one is known to be the last,
+ * and an empty stream gets encrypted into an empty last chunk.
+ */
+public class CryptoInputStream extends FilterInputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Cryptosystem cryptosystem;
+    private final CryptoOperation operation;
+    private final int chunkSize;
+    private final PendingChunks pendingChunks;
+    private final SessionCryptosystem session;
+    private boolean sessionStarted = false;
+    private byte[] output = EMPTY;
+    private int outputPosition = 0;
+    private byte[] nextInput = null;
+    private long chunkIndex = 0;
+    private boolean endOfInput = false;
+    private boolean closed = false;
+
+
+    public CryptoInputStream(
+        @Nonnull final InputStream in,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation
+    ) {
+        this( in, cryptosystem, operation, null, 1 );
+    }
+
+    public CryptoInputStream(
+        @Nonnull final InputStream in,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation,
+        @Nullable final ExecutorService executorService,
+        int maxPendingChunks
+    ) {
+        super( in );
+        this.cryptosystem = cryptosystem;
+        this.operation = operation;
+        this.chunkSize = operation.getInputChunkSize( cryptosystem );
+        this.pendingChunks = executorService == null ? null : new PendingChunks( executorService, maxPendingChunks );
+        this.session = cryptosystem instanceof SessionCryptosystem s ? s : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int numRead = read( b, 0, 1 );
+
+        return numRead < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read( @Nonnull final byte[] b, int off, int len ) throws IOException {
+        Objects.checkFromIndexSize( off, len, b.length );
+        ensureOpen();
+        if ( len == 0 ) {
+            return 0;
+        }
+
+        if ( outputPosition == output.length && !nextOutput() ) {
+            return -1;
+        }
+
+        final int count = Math.min( len, output.length - outputPosition );
+        System.arraycopy( output, outputPosition, b, off, count );
+        outputPosition += count;
+
+        return count;
+    }
+
+    @Override
+    public long skip( long n ) throws IOException {
+        long skipped = 0;
+        while ( skipped < n ) {
+            if ( outputPosition == output.length && !nextOutput() ) {
+                break;
+            }
+
+            final int count = (int) Math.min( n - skipped, output.length - outputPosition );
+            outputPosition += count;
+            skipped += count;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+
+        return output.length - outputPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark( int readlimit ) {
+        // Not supported.
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException( "Mark/reset not supported." );
+    }
+
+    @Override
+    public void close() throws IOException {
+        if ( closed ) {
+            return;
+        }
+
+        closed = true;
+        if ( pendingChunks != null ) {
+            pendingChunks.cancelAll();
+        }
+        in.close();
+    }
+
+    /**
+     * Replaces the drained output with the next processed chunk.
+     *
+     * @return false when the underlying stream has been exhausted.
+     */
+    private boolean nextOutput() throws IOException {
+        if ( session != null && !sessionStarted && startSession() ) {
+            return true;
+        }
+
+        do {
+            if ( pendingChunks == null ) {
+                final byte[] input = readChunk();
+                if ( input.length == 0 && !isEmptyLastChunk() ) {
+                    return false;
+                }
+                output = operation.applyToOwnedChunk( cryptosystem, input, chunkIndex++, endOfInput );
+            }
+            else {
+                while ( !endOfInput && !pendingChunks.isFull() ) {
+                    final byte[] input = readChunk();
+                    if ( input.length > 0 || isEmptyLastChunk() ) {
+                        final long index = chunkIndex++;
+                        final boolean lastChunk = endOfInput;
+                        pendingChunks.submit(
+                            () -> operation.applyToOwnedChunk( cryptosystem, input, index, lastChunk )
+                        );
+                    }
+                }
+                if ( pendingChunks.isEmpty() ) {
+                    return false;
+                }
+                output = pendingChunks.takeOldest();
+            }
+
+            outputPosition = 0;
+        }
+        while ( output.length == 0 );
+
+        return true;
+    }
+
+    /**
+     * Serves the header of a new encryption session, or reads the header of
+     * the decryption session and starts it.
+     *
+     * @return true when the header has become the output.
+     */
+    private boolean startSession() throws IOException {
+        sessionStarted = true;
+        if ( operation == CryptoOperation.ENCRYPT ) {
+            output = session.beginEncryptSession();
+            outputPosition = 0;
+
+            return true;
+        }
+
+        final byte[] header = in.readNBytes( session.getHeaderLength() );
+        if ( header.length < session.getHeaderLength() ) {
+            throw new IOException( String.format(
+                "Truncated session header.  Header Length: %d, Expected Header Length: %d",
+                header.length, session.getHeaderLength()
+            ) );
+        }
+
+        session.beginDecryptSession( header );
+
+        return false;
+    }
+
+    /**
+     * A session stream always ends with a last chunk, so an empty stream gets
+     * one, which fails to decrypt as it should, being cut short.
+     */
+    private boolean isEmptyLastChunk() {
+        return session != null && chunkIndex == 0;
+    }
+
+    /**
+     * Reads the next chunk.  For a session, the chunk after it gets read
+     * ahead too, so endOfInput is set as of the last chunk.
+     */
+    @Nonnull
+    private byte[] readChunk() throws IOException {
+        if ( endOfInput ) {
+            return EMPTY;
+        }
+
+        final byte[] input = nextInput != null ? nextInput : in.readNBytes( chunkSize );
+        nextInput = null;
+        if ( input.length < chunkSize ) {
+            endOfInput = true;
+        }
+        else if ( session != null ) {
+            nextInput = in.readNBytes( chunkSize );
+            endOfInput = nextInput.length == 0;
+        }
+
+        return input;
+    }
+
+    private void ensureOpen() throws IOException {
+        if ( closed ) {
+            throw new IOException( "Stream closed." );
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This enum names the two operations a {@link Cryptosystem} performs so that
+ * callers may choose one at runtime.
+ */
+public enum CryptoOperation {
+    ENCRYPT, DECRYPT;
+
+    /**
+     * Returns the length of the chunks the given cryptosystem expects as input
+     * for this operation.
+     */
+    public int getInputChunkSize( @Nonnull final Cryptosystem cryptosystem ) {
+        return this == ENCRYPT ? cryptosystem.getChunkSizeEncrypt() : cryptosystem.getChunkSizeDecrypt();
+    }
+
+    @Nonnull
+    public byte[] apply( @Nonnull final Cryptosystem cryptosystem, @Nonnull final byte[] chunk ) throws IOException {
+        return this == ENCRYPT ? cryptosystem.encrypt( chunk ) : cryptosystem.decrypt( chunk );
+    }
+
+    public int apply(
+        @Nonnull final Cryptosystem cryptosystem, @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst
+    ) throws IOException {
+        return this == ENCRYPT ? cryptosystem.encrypt( src, dst ) : cryptosystem.decrypt( src, dst );
+    }
+
+    /**
+     * Applies this operation to a chunk the caller hands over and will not
+     * use again.  Cryptosystems which support it transform the chunk in place.
+     *
+     * @return the processed chunk, which may be the given array.
+     */
+    @Nonnull
+    public byte[] applyToOwnedChunk(
+        @Nonnull final Cryptosystem cryptosystem, @Nonnull final byte[] chunk
+    ) throws IOException {
+        if ( !cryptosystem.supportsInPlace() ) {
+            return apply( cryptosystem, chunk );
+        }
+
+        applyInPlace( cryptosystem, chunk, 0, chunk.length );
+
+        return chunk;
+    }
+
+    /**
+     * Applies this operation to an owned chunk at the given position of its
+     * stream.  The position only matters to a {@link SessionCryptosystem},
+     * which authenticates it along with the chunk, and to a
+     * {@link PositionalCryptosystem}, which encrypts each chunk by it.
+     */
+    @Nonnull
+    public byte[] applyToOwnedChunk(
+        @Nonnull final Cryptosystem cryptosystem, @Nonnull final byte[] chunk, long chunkIndex, boolean lastChunk
+    ) throws IOException {
+        if ( cryptosystem instanceof PositionalCryptosystem positional ) {
+            return applyToOwnedChunk( positional, chunk, chunkIndex );
+        }
+        if ( !(cryptosystem instanceof SessionCryptosystem session) ) {
+            return applyToOwnedChunk( cryptosystem, chunk );
+        }
+
+        return this == ENCRYPT
+            ? session.encrypt( chunk, chunkIndex, lastChunk ) : session.decrypt( chunk, chunkIndex, lastChunk );
+    }
+
+    @Nonnull
+    private byte[] applyToOwnedChunk(
+        @Nonnull final PositionalCryptosystem cryptosystem, @Nonnull final byte[] chunk, long chunkIndex
+    ) throws IOException {
+        if ( !cryptosystem.supportsInPlace() ) {
+            return this == ENCRYPT
+                ? cryptosystem.encrypt( chunk, chunkIndex ) : cryptosystem.decrypt( chunk, chunkIndex );
+        }
+
+        if ( this == ENCRYPT ) {
+            cryptosystem.encryptInPlace( chunk, 0, chunk.length, chunkIndex );
+        }
+        else {
+            cryptosystem.decryptInPlace( chunk, 0, chunk.length, chunkIndex );
+        }
+
+        return chunk;
+    }
+
+    public void applyInPlace(
+        @Nonnull final Cryptosystem cryptosystem, @Nonnull final byte[] buf, int off, int len
+    ) throws IOException {
+        if ( this == ENCRYPT ) {
+            cryptosystem.encryptInPlace( buf, off, len );
+        }
+        else {
+            cryptosystem.decryptInPlace( buf, off, len );
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * This class implements an output stream which encrypts or decrypts whatever
+ * gets written to it, then writes the result to the underlying stream.  The
+ * bytes written get split into chunks of the size the cryptosystem expects
+ * for the operation, so only one chunk is buffered at a time.  The last chunk
+ * may be partial and gets processed on {@link #close()}.
+ * <p>
+ * When given an executor, chunks get processed in the background with at
+ * most the given number of chunks in flight, and are written in order.
+ * <p>
+ * A {@link SessionCryptosystem} gets a session started per stream.  When
+ * encrypting, its header gets written ahead of the first chunk.  When
+ * decrypting, the header is expected ahead of the first chunk.  A full chunk
+ * of a session stays buffered until more bytes get written, since only then
+ * is it known not to be the last chunk.  Closing processes the last chunk,
+ * which for an empty stream is an empty one.
+ */
+public class CryptoOutputStream extends FilterOutputStream {
+
+    private final Cryptosystem cryptosystem;
+    private final CryptoOperation operation;
+    private final PendingChunks pendingChunks;
+    private final SessionCryptosystem session;
+    private boolean sessionStarted = false;
+    private byte[] chunk;
+    private int chunkLength = 0;
+    private long chunkIndex = 0;
+    private boolean closed = false;
+
+
+    public CryptoOutputStream(
+        @Nonnull final OutputStream out,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation
+    ) {
+        this( out, cryptosystem, operation, null, 1 );
+    }
+
+    public CryptoOutputStream(
+        @Nonnull final OutputStream out,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation,
+        @Nullable final ExecutorService executorService,
+        int maxPendingChunks
+    ) {
+        super( out );
+        this.cryptosystem = cryptosystem;
+        this.operation = operation;
+        this.pendingChunks = executorService == null ? null : new PendingChunks( executorService, maxPendingChunks );
+        this.session = cryptosystem instanceof SessionCryptosystem s ? s : null;
+        final boolean readsHeader = session != null && operation == CryptoOperation.DECRYPT;
+        this.chunk = new byte[readsHeader ? session.getHeaderLength() : operation.getInputChunkSize( cryptosystem )];
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+        write( new byte[]{(byte) b}, 0, 1 );
+    }
+
+    @Override
+    public void write( @Nonnull final byte[] b, int off, int len ) throws IOException {
+        Objects.checkFromIndexSize( off, len, b.length );
+        ensureOpen();
+
+        while ( len > 0 ) {
+            if ( chunkLength == chunk.length ) {
+                processChunk( false );
+            }
+
+            final int count = Math.min( len, chunk.length - chunkLength );
+            System.arraycopy( b, off, chunk, chunkLength, count );
+            chunkLength += count;
+            off += count;
+            len -= count;
+
+            if ( chunkLength == chunk.length && session == null ) {
+                processChunk( false );
+            }
+        }
+    }
+
+    /**
+     * Writes every chunk processed so far, then flushes the underlying stream.
+     * A partial chunk stays buffered, since processing it early would change
+     * the chunk boundaries the reading side expects.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drainPendingChunks();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if ( closed ) {
+            return;
+        }
+
+        try {
+            if ( session != null ) {
+                closeSession();
+            }
+            else if ( chunkLength > 0 ) {
+                processChunk( false );
+            }
+            drainPendingChunks();
+            out.flush();
+        }
+        catch ( IOException | RuntimeException e ) {
+            if ( pendingChunks != null ) {
+                pendingChunks.cancelAll();
+            }
+
+            throw e;
+        }
+        finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    private void processChunk( boolean lastChunk ) throws IOException {
+        if ( session != null && !sessionStarted ) {
+            startSession();
+            if ( operation == CryptoOperation.DECRYPT ) {
+                return;
+            }
+        }
+
+        final byte[] input = chunkLength == chunk.length ? chunk : Arrays.copyOf( chunk, chunkLength );
+        final long index = chunkIndex++;
+        chunkLength = 0;
+
+        if ( pendingChunks == null ) {
+            out.write( operation.applyToOwnedChunk( cryptosystem, input, index, lastChunk ) );
+
+            return;
+        }
+
+        if ( pendingChunks.isFull() ) {
+            out.write( pendingChunks.takeOldest() );
+        }
+        pendingChunks.submit( () -> operation.applyToOwnedChunk( cryptosystem, input, index, lastChunk ) );
+        if ( input == chunk ) {
+            chunk = new byte[chunk.length];
+        }
+    }
+
+    /**
+     * Processes the buffered chunk as the session's last chunk.  An empty
+     * stream gets an empty last chunk when encrypting, while a decrypted
+     * stream without one has been cut short.
+     */
+    private void closeSession() throws IOException {
+        if ( !sessionStarted ) {
+            startSession();
+        }
+        if ( operation == CryptoOperation.DECRYPT && chunkLength == 0 ) {
+            throw new IOException( String.format(
+                "Truncated stream, the last chunk is missing.  Chunk Count: %d", chunkIndex
+            ) );
+        }
+
+        processChunk( true );
+    }
+
+    /**
+     * Writes the header of a new encryption session, or starts the decryption
+     * session described by the buffered header.
+     */
+    private void startSession() throws IOException {
+        sessionStarted = true;
+        if ( operation == CryptoOperation.ENCRYPT ) {
+            out.write( session.beginEncryptSession() );
+
+            return;
+        }
+
+        if ( chunkLength != chunk.length ) {
+            throw new IOException( String.format(
+                "Truncated session header.  Header Length: %d, Expected Header Length: %d",
+                chunkLength, chunk.length
+            ) );
+        }
+
+        session.beginDecryptSession( chunk );
+        chunk = new byte[operation.getInputChunkSize( cryptosystem )];
+        chunkLength = 0;
+    }
+
+    private void drainPendingChunks() throws IOException {
+        if ( pendingChunks == null ) {
+            return;
+        }
+
+        while ( !pendingChunks.isEmpty() ) {
+            out.write( pendingChunks.takeOldest() );
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if ( closed ) {
+            throw new IOException( "Stream closed." );
+        }
+    }
+
+}
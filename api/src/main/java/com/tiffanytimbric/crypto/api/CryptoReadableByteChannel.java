@@ -0,0 +1,95 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * This class implements a readable channel which reads the underlying
+ * channel in chunks, encrypts or decrypts each chunk, then serves the result.
+ * Chunking and background processing behave as they do for
+ * {@link CryptoInputStream}.
+ */
+public class CryptoReadableByteChannel implements ReadableByteChannel {
+
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private final CryptoInputStream inputStream;
+    private byte[] transferBuffer = null;
+    private boolean open = true;
+
+
+    public CryptoReadableByteChannel(
+        @Nonnull final ReadableByteChannel channel,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation
+    ) {
+        this( channel, cryptosystem, operation, null, 1 );
+    }
+
+    public CryptoReadableByteChannel(
+        @Nonnull final ReadableByteChannel channel,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation,
+        @Nullable final ExecutorService executorService,
+        int maxPendingChunks
+    ) {
+        this.inputStream = new CryptoInputStream(
+            Channels.newInputStream( channel ), cryptosystem, operation, executorService, maxPendingChunks
+        );
+    }
+
+    @Override
+    public int read( @Nonnull final ByteBuffer dst ) throws IOException {
+        if ( !open ) {
+            throw new ClosedChannelException();
+        }
+
+        if ( !dst.hasRemaining() ) {
+            return 0;
+        }
+
+        if ( dst.hasArray() ) {
+            final int numRead = inputStream.read(
+                dst.array(), dst.arrayOffset() + dst.position(), dst.remaining()
+            );
+            if ( numRead > 0 ) {
+                dst.position( dst.position() + numRead );
+            }
+
+            return numRead;
+        }
+
+        if ( transferBuffer == null ) {
+            transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+        }
+        final int numRead = inputStream.read( transferBuffer, 0, Math.min( dst.remaining(), transferBuffer.length ) );
+        if ( numRead > 0 ) {
+            dst.put( transferBuffer, 0, numRead );
+        }
+
+        return numRead;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if ( !open ) {
+            return;
+        }
+
+        open = false;
+        inputStream.close();
+    }
+
+}
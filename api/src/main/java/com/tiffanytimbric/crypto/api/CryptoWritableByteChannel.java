@@ -0,0 +1,93 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * This class implements a writable channel which encrypts or decrypts
+ * whatever gets written to it, then writes the result to the underlying
+ * channel.  Chunking and background processing behave as they do for
+ * {@link CryptoOutputStream}.
+ */
+public class CryptoWritableByteChannel implements WritableByteChannel {
+
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private final CryptoOutputStream outputStream;
+    private byte[] transferBuffer = null;
+    private boolean open = true;
+
+
+    public CryptoWritableByteChannel(
+        @Nonnull final WritableByteChannel channel,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation
+    ) {
+        this( channel, cryptosystem, operation, null, 1 );
+    }
+
+    public CryptoWritableByteChannel(
+        @Nonnull final WritableByteChannel channel,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation,
+        @Nullable final ExecutorService executorService,
+        int maxPendingChunks
+    ) {
+        this.outputStream = new CryptoOutputStream(
+            Channels.newOutputStream( channel ), cryptosystem, operation, executorService, maxPendingChunks
+        );
+    }
+
+    @Override
+    public int write( @Nonnull final ByteBuffer src ) throws IOException {
+        if ( !open ) {
+            throw new ClosedChannelException();
+        }
+
+        final int length = src.remaining();
+        if ( src.hasArray() ) {
+            outputStream.write( src.array(), src.arrayOffset() + src.position(), length );
+            src.position( src.limit() );
+
+            return length;
+        }
+
+        if ( transferBuffer == null ) {
+            transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+        }
+        while ( src.hasRemaining() ) {
+            final int count = Math.min( src.remaining(), transferBuffer.length );
+            src.get( transferBuffer, 0, count );
+            outputStream.write( transferBuffer, 0, count );
+        }
+
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Processes the final, possibly partial, chunk then closes the underlying
+     * channel.
+     */
+    @Override
+    public void close() throws IOException {
+        if ( !open ) {
+            return;
+        }
+
+        open = false;
+        outputStream.close();
+    }
+
+}
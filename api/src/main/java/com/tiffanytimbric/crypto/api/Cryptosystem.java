@@ -1,6 +1,7 @@
 package com.tiffanytimbric.crypto.api;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import javax.annotation.Nonnull;
 
 
@@ -8,6 +9,15 @@ public interface Cryptosystem {
 
     void init( boolean isBaseNEncode, boolean isBaseNDecode, int baseN );
 
+    /**
+     * Loads the keys and parameters now, rather than on the first encrypt or
+     * decrypt, so the first chunk does not wait on them.  Safe to call from
+     * a thread of its own while other threads start using the cryptosystem.
+     */
+    default void warmUp() throws IOException {
+        // Do nothing;
+    }
+
     int getChunkSizeEncrypt();
 
     void setChunkSizeEncrypt( int chunkSizeEncrypt );
@@ -16,10 +26,120 @@ public interface Cryptosystem {
 
     void setChunkSizeDecrypt( int chunkSizeDecrypt );
 
+    /**
+     * @return the encrypted message, in a new array.  The message array is
+     * left as it was.
+     */
     @Nonnull
     byte[] encrypt( @Nonnull final byte[] message ) throws IOException;
 
+    /**
+     * @return the decrypted message, in a new array.  The message array is
+     * left as it was.
+     */
     @Nonnull
     byte[] decrypt( @Nonnull final byte[] message ) throws IOException;
 
+    /**
+     * @return whether {@link #encryptInPlace(byte[], int, int)} and
+     * {@link #decryptInPlace(byte[], int, int)} are supported, as they are by
+     * length preserving stream ciphers.
+     */
+    default boolean supportsInPlace() {
+        return false;
+    }
+
+    /**
+     * Encrypts len bytes of the buffer, starting at off, overwriting them with
+     * the result.  The caller hands the bytes over to be transformed, so no
+     * output gets allocated.
+     *
+     * @throws UnsupportedOperationException unless {@link #supportsInPlace()}.
+     */
+    default void encryptInPlace( @Nonnull final byte[] buf, int off, int len ) throws IOException {
+        throw new UnsupportedOperationException( String.format(
+            "In place encryption is not supported.  Cryptosystem: %s", getClass().getSimpleName()
+        ) );
+    }
+
+    /**
+     * Decrypts len bytes of the buffer, starting at off, overwriting them with
+     * the result.
+     *
+     * @throws UnsupportedOperationException unless {@link #supportsInPlace()}.
+     */
+    default void decryptInPlace( @Nonnull final byte[] buf, int off, int len ) throws IOException {
+        throw new UnsupportedOperationException( String.format(
+            "In place decryption is not supported.  Cryptosystem: %s", getClass().getSimpleName()
+        ) );
+    }
+
+    /**
+     * Encrypts the remaining bytes of the source buffer into the destination
+     * buffer, advancing the position of both.  Heap and direct buffers are
+     * both supported.
+     *
+     * @return the number of bytes written into the destination buffer.
+     */
+    int encrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) throws IOException;
+
+    /**
+     * Decrypts the remaining bytes of the source buffer into the destination
+     * buffer, advancing the position of both.  Heap and direct buffers are
+     * both supported.
+     *
+     * @return the number of bytes written into the destination buffer.
+     */
+    int decrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) throws IOException;
+
+    /**
+     * Encrypts each source buffer, in order, into the one destination buffer,
+     * so the outputs end up contiguous.  The position of every buffer gets
+     * advanced.  Implementations with per-call setup should override this
+     * method to do the setup once per batch.
+     *
+     * @return the number of bytes written for each source buffer.
+     */
+    @Nonnull
+    default int[] encryptBatch( @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst ) throws IOException {
+        final int[] lengths = new int[srcs.length];
+        for ( int i = 0; i < srcs.length; i++ ) {
+            lengths[i] = encrypt( srcs[i], dst );
+        }
+
+        return lengths;
+    }
+
+    /**
+     * Decrypts each source buffer, in order, into the one destination buffer,
+     * the same way {@link #encryptBatch(ByteBuffer[], ByteBuffer)} encrypts.
+     *
+     * @return the number of bytes written for each source buffer.
+     */
+    @Nonnull
+    default int[] decryptBatch( @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst ) throws IOException {
+        final int[] lengths = new int[srcs.length];
+        for ( int i = 0; i < srcs.length; i++ ) {
+            lengths[i] = decrypt( srcs[i], dst );
+        }
+
+        return lengths;
+    }
+
+    /**
+     * @return whether every chunk encrypts or decrypts to exactly as many
+     * bytes as it had, so the offset of each output chunk is known up front.
+     */
+    default boolean isLengthPreserving() {
+        return false;
+    }
+
+    /**
+     * @return the time spent generating keys which did not exist yet when
+     * first needed, or 0 when every key was already there.
+     */
+    default long getKeyGenerationNanos() {
+        return 0;
+    }
+
 }
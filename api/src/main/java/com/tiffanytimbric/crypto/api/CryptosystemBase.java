@@ -1,5 +1,9 @@
 package com.tiffanytimbric.crypto.api;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
 
 public abstract class CryptosystemBase implements Cryptosystem {
 
@@ -31,4 +35,64 @@ public abstract class CryptosystemBase implements Cryptosystem {
         this.chunkSizeDecrypt = chunkSizeDecrypt;
     }
 
+    /**
+     * Encrypts by way of {@link #encrypt(byte[])}, copying in and out of the
+     * buffers.  Implementations able to work on the buffers directly should
+     * override this method.
+     */
+    @Override
+    public int encrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) throws IOException {
+        final byte[] output = encrypt( getRemaining( src ) );
+
+        return putOutput( output, src, dst );
+    }
+
+    /**
+     * Decrypts by way of {@link #decrypt(byte[])}, copying in and out of the
+     * buffers.  Implementations able to work on the buffers directly should
+     * override this method.
+     */
+    @Override
+    public int decrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) throws IOException {
+        final byte[] output = decrypt( getRemaining( src ) );
+
+        return putOutput( output, src, dst );
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s[chunkSizeEncrypt=%d, chunkSizeDecrypt=%d]",
+            getClass().getSimpleName(), chunkSizeEncrypt, chunkSizeDecrypt
+        );
+    }
+
+    protected static void validateOutputCapacity( int outputLength, @Nonnull final ByteBuffer dst ) {
+        if ( outputLength > dst.remaining() ) {
+            throw new RuntimeException( String.format(
+                "Insufficient output buffer capacity.  Output Length: %d, Output Buffer Remaining: %d",
+                outputLength, dst.remaining()
+            ) );
+        }
+    }
+
+    @Nonnull
+    protected static byte[] getRemaining( @Nonnull final ByteBuffer src ) {
+        final byte[] bytes = new byte[src.remaining()];
+        src.duplicate().get( bytes );
+
+        return bytes;
+    }
+
+    protected static int putOutput(
+        @Nonnull final byte[] output, @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst
+    ) {
+        validateOutputCapacity( output.length, dst );
+
+        src.position( src.limit() );
+        dst.put( output );
+
+        return output.length;
+    }
+
 }
@@ -0,0 +1,226 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements a long-lived pool of worker threads meant to be
+ * created once per process, reused for every chunk, then closed when the run
+ * ends.  The threads backing the pool come from one of the supported
+ * {@link Backend}s.
+ * <p>
+ * Besides the crypto workers, each engine runs I/O tasks, such as whole
+ * streams, on threads of their own.  With the {@link Backend#VIRTUAL_IO}
+ * backend those are virtual threads which park cheaply while blocked, and
+ * the encrypt/decrypt work they hand off stays bounded to the fixed pool of
+ * crypto workers, so thousands of concurrent streams never run more than
+ * parallelism chunks at once.
+ */
+public final class ExecutionEngine implements AutoCloseable {
+
+    private static final int MAX_PENDING_CHUNKS_PER_STREAM = 2;
+
+    private final Backend backend;
+    private final int parallelism;
+    private final ExecutorService executorService;
+    private final ExecutorService ioExecutorService;
+
+
+    private ExecutionEngine(
+        @Nonnull final Backend backend, int parallelism, @Nonnull final ExecutorService executorService,
+        @Nonnull final ExecutorService ioExecutorService
+    ) {
+        this.backend = backend;
+        this.parallelism = parallelism;
+        this.executorService = executorService;
+        this.ioExecutorService = ioExecutorService;
+    }
+
+    /**
+     * Creates an engine of the given backend.
+     *
+     * @param backend     the kind of threads to run tasks on.
+     * @param parallelism the number of platform or fork/join worker threads.
+     *                    Virtual threads are created per task, so this value
+     *                    only gets recorded for them.  For
+     *                    {@link Backend#VIRTUAL_IO} it bounds the crypto
+     *                    workers, so the number of cores is a good value.
+     */
+    @Nonnull
+    public static ExecutionEngine create( @Nonnull final Backend backend, int parallelism ) {
+        if ( parallelism < 1 ) {
+            throw new IllegalArgumentException( String.format(
+                "Unsupported parallelism.  Parallelism: %d, Supported Min Parallelism: 1", parallelism
+            ) );
+        }
+
+        final ExecutorService executorService = switch ( backend ) {
+            case PLATFORM, VIRTUAL_IO -> Executors.newFixedThreadPool( parallelism );
+            case VIRTUAL -> newVirtualThreadPerTaskExecutor();
+            case FORK_JOIN -> new ForkJoinPool( parallelism );
+        };
+        final ExecutorService ioExecutorService = switch ( backend ) {
+            case VIRTUAL, VIRTUAL_IO -> newVirtualThreadPerTaskExecutor();
+            case PLATFORM, FORK_JOIN -> Executors.newCachedThreadPool();
+        };
+
+        return new ExecutionEngine( backend, parallelism, executorService, ioExecutorService );
+    }
+
+    /**
+     * The virtual thread executor gets looked up reflectively because this
+     * project still compiles for a JDK which predates virtual threads.
+     */
+    @Nonnull
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" )
+                .invoke( null );
+        }
+        catch ( NoSuchMethodException | IllegalAccessException | InvocationTargetException e ) {
+            throw new UnsupportedOperationException( String.format(
+                "Virtual threads are not supported by this JVM.  Java Version: %s",
+                System.getProperty( "java.version" )
+            ), e );
+        }
+    }
+
+    @Nonnull
+    public <T> Future<T> submit( @Nonnull final Callable<T> task ) {
+        return executorService.submit( task );
+    }
+
+    /**
+     * Submits a task which mostly blocks on I/O, to run on an I/O thread
+     * rather than a crypto worker.
+     */
+    @Nonnull
+    public <T> Future<T> submitIo( @Nonnull final Callable<T> task ) {
+        return ioExecutorService.submit( task );
+    }
+
+    /**
+     * Encrypts or decrypts the whole input stream into the output stream on
+     * an I/O thread.  The chunks get processed by the crypto workers, with a
+     * couple of chunks of read ahead per stream.  Neither stream gets closed.
+     * <p>
+     * A {@link SessionCryptosystem} keeps per-stream state, so concurrent
+     * streams each need their own instance of one.
+     *
+     * @return the number of bytes written to the output stream.
+     */
+    @Nonnull
+    public Future<Long> submitStream(
+        @Nonnull final InputStream inputStream,
+        @Nonnull final OutputStream outputStream,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation
+    ) {
+        return submitIo( () -> transfer( inputStream, outputStream, cryptosystem, operation ) );
+    }
+
+    private long transfer(
+        @Nonnull final InputStream inputStream,
+        @Nonnull final OutputStream outputStream,
+        @Nonnull final Cryptosystem cryptosystem,
+        @Nonnull final CryptoOperation operation
+    ) throws IOException {
+        final CryptoInputStream cryptoInputStream = new CryptoInputStream(
+            inputStream, cryptosystem, operation, executorService, MAX_PENDING_CHUNKS_PER_STREAM
+        );
+        final long numWritten = cryptoInputStream.transferTo( outputStream );
+        outputStream.flush();
+
+        return numWritten;
+    }
+
+    @Nonnull
+    public ExecutorService executorService() {
+        return executorService;
+    }
+
+    @Nonnull
+    public ExecutorService ioExecutorService() {
+        return ioExecutorService;
+    }
+
+    @Nonnull
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Stops accepting tasks then waits for the already submitted ones to
+     * complete, I/O tasks first since they may still hand chunks to the
+     * crypto workers.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = awaitTermination( ioExecutorService );
+        interrupted |= awaitTermination( executorService );
+
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return whether the wait got interrupted.
+     */
+    private static boolean awaitTermination( @Nonnull final ExecutorService executorService ) {
+        executorService.shutdown();
+        boolean interrupted = false;
+        while ( !executorService.isTerminated() ) {
+            try {
+                executorService.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+            }
+            catch ( InterruptedException e ) {
+                executorService.shutdownNow();
+                interrupted = true;
+            }
+        }
+
+        return interrupted;
+    }
+
+
+    public enum Backend {
+        PLATFORM, VIRTUAL, FORK_JOIN,
+
+        /**
+         * I/O tasks on virtual threads, crypto work on a fixed pool of
+         * platform threads.
+         */
+        VIRTUAL_IO;
+
+        @Nonnull
+        public static Backend forName( @Nonnull final String name ) {
+            return switch ( name.toLowerCase( Locale.ROOT ).replaceAll( "[-_]", "" ) ) {
+                case "platform" -> PLATFORM;
+                case "virtual" -> VIRTUAL;
+                case "forkjoin" -> FORK_JOIN;
+                case "virtualio" -> VIRTUAL_IO;
+                default -> throw new IllegalArgumentException( String.format(
+                    "Unsupported execution backend provided.  Supported values: platform, virtual, forkjoin, virtualio, Provided Value: %s",
+                    name
+                ) );
+            };
+        }
+    }
+
+}
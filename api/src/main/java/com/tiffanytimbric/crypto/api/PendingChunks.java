@@ -0,0 +1,78 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class holds the chunks a stream has handed to background workers,
+ * handing their results back in submission order.  The number of chunks in
+ * flight is bounded so memory stays constant however large the stream.
+ */
+final class PendingChunks {
+
+    private final ExecutorService executorService;
+    private final int maxPending;
+    private final Queue<Future<byte[]>> pending;
+
+
+    PendingChunks( @Nonnull final ExecutorService executorService, int maxPending ) {
+        if ( maxPending < 1 ) {
+            throw new IllegalArgumentException( String.format(
+                "Unsupported max pending chunk count.  Max Pending: %d, Supported Min Max Pending: 1", maxPending
+            ) );
+        }
+
+        this.executorService = executorService;
+        this.maxPending = maxPending;
+        this.pending = new ArrayDeque<>( maxPending );
+    }
+
+    void submit( @Nonnull final Callable<byte[]> task ) {
+        pending.add( executorService.submit( task ) );
+    }
+
+    boolean isFull() {
+        return pending.size() >= maxPending;
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Waits for, then removes and returns, the result of the oldest chunk.
+     */
+    @Nonnull
+    byte[] takeOldest() throws IOException {
+        final Future<byte[]> future = pending.remove();
+        try {
+            return future.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException( e.getMessage() );
+        }
+        catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof IOException ioException ) {
+                throw ioException;
+            }
+
+            throw new IOException( e.getCause() );
+        }
+    }
+
+    void cancelAll() {
+        pending.forEach( future -> future.cancel( true ) );
+        pending.clear();
+    }
+
+}
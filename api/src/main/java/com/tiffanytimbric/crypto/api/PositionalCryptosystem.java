@@ -0,0 +1,108 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This interface defines a cryptosystem which encrypts each chunk of a stream
+ * according to its position, its zero based chunk index, so that no two
+ * chunks of a stream get encrypted the same way.  A chunk only decrypts at
+ * the position it was encrypted at.  Every chunk but the last is expected to
+ * be exactly the chunk size long.  The position free methods treat the
+ * message as the stream's first chunk.
+ */
+public interface PositionalCryptosystem extends Cryptosystem {
+
+    /**
+     * @return the chunk encrypted at the given position of the stream, in a
+     * new array.
+     */
+    @Nonnull
+    byte[] encrypt( @Nonnull final byte[] message, long chunkIndex ) throws IOException;
+
+    /**
+     * @return the chunk decrypted at the given position of the stream, in a
+     * new array.
+     */
+    @Nonnull
+    byte[] decrypt( @Nonnull final byte[] bytes, long chunkIndex ) throws IOException;
+
+    /**
+     * Encrypts the remaining bytes of the source buffer, as the chunk at the
+     * given position of the stream, into the destination buffer.
+     *
+     * @return the number of bytes written into the destination buffer.
+     */
+    int encrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst, long chunkIndex ) throws IOException;
+
+    /**
+     * Decrypts the remaining bytes of the source buffer, as the chunk at the
+     * given position of the stream, into the destination buffer.
+     *
+     * @return the number of bytes written into the destination buffer.
+     */
+    int decrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst, long chunkIndex ) throws IOException;
+
+    /**
+     * Encrypts len bytes of the buffer in place, as the chunk at the given
+     * position of the stream.
+     *
+     * @throws UnsupportedOperationException unless {@link #supportsInPlace()}.
+     */
+    default void encryptInPlace( @Nonnull final byte[] buf, int off, int len, long chunkIndex ) throws IOException {
+        throw new UnsupportedOperationException( String.format(
+            "In place encryption is not supported.  Cryptosystem: %s", getClass().getSimpleName()
+        ) );
+    }
+
+    /**
+     * Decrypts len bytes of the buffer in place, as the chunk at the given
+     * position of the stream.
+     *
+     * @throws UnsupportedOperationException unless {@link #supportsInPlace()}.
+     */
+    default void decryptInPlace( @Nonnull final byte[] buf, int off, int len, long chunkIndex ) throws IOException {
+        throw new UnsupportedOperationException( String.format(
+            "In place decryption is not supported.  Cryptosystem: %s", getClass().getSimpleName()
+        ) );
+    }
+
+    /**
+     * Encrypts each source buffer, as consecutive chunks starting at the
+     * given position of the stream, into the one destination buffer.
+     *
+     * @return the number of bytes written for each source buffer.
+     */
+    @Nonnull
+    default int[] encryptBatch(
+        @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst, long firstChunkIndex
+    ) throws IOException {
+        final int[] lengths = new int[srcs.length];
+        for ( int i = 0; i < srcs.length; i++ ) {
+            lengths[i] = encrypt( srcs[i], dst, firstChunkIndex + i );
+        }
+
+        return lengths;
+    }
+
+    /**
+     * Decrypts each source buffer, as consecutive chunks starting at the
+     * given position of the stream, into the one destination buffer.
+     *
+     * @return the number of bytes written for each source buffer.
+     */
+    @Nonnull
+    default int[] decryptBatch(
+        @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst, long firstChunkIndex
+    ) throws IOException {
+        final int[] lengths = new int[srcs.length];
+        for ( int i = 0; i < srcs.length; i++ ) {
+            lengths[i] = decrypt( srcs[i], dst, firstChunkIndex + i );
+        }
+
+        return lengths;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.tiffanytimbric.crypto.api;
+
+import java.io.IOException;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This interface defines a cryptosystem whose chunks are encrypted under
+ * per-stream session state, such as a random session key.  The encrypting
+ * side starts a session and writes the returned header ahead of the first
+ * chunk.  The decrypting side reads that header back and starts the matching
+ * session before decrypting any chunk.  An instance holds one session at a
+ * time.
+ * <p>
+ * Each chunk of a stream gets encrypted and decrypted at its position, its
+ * zero based chunk index plus whether it is the stream's last chunk, which
+ * gets authenticated along with it.  So chunks which get reordered, dropped,
+ * duplicated, or cut off the end of the stream fail to decrypt.  Every
+ * stream ends with a last chunk, which is empty for an empty stream.  The
+ * position free {@link #encrypt(byte[])} and {@link #decrypt(byte[])}
+ * treat the message as a stream of one chunk.
+ */
+public interface SessionCryptosystem extends Cryptosystem {
+
+    /**
+     * The length of the binary header, as written ahead of the first chunk.
+     */
+    int getHeaderLength();
+
+    /**
+     * Starts a new encryption session.
+     *
+     * @return the header to write ahead of the first chunk.
+     */
+    @Nonnull
+    byte[] beginEncryptSession() throws IOException;
+
+    /**
+     * Starts the decryption session described by the given header.
+     */
+    void beginDecryptSession( @Nonnull final byte[] header ) throws IOException;
+
+    /**
+     * @return the chunk encrypted at the given position of the stream, in a
+     * new array.
+     */
+    @Nonnull
+    byte[] encrypt( @Nonnull final byte[] message, long chunkIndex, boolean lastChunk ) throws IOException;
+
+    /**
+     * @return the chunk decrypted at the given position of the stream, in a
+     * new array.
+     * @throws IOException when the chunk was not encrypted at that position.
+     */
+    @Nonnull
+    byte[] decrypt( @Nonnull final byte[] bytes, long chunkIndex, boolean lastChunk ) throws IOException;
+
+}
@@ -0,0 +1,137 @@
+package com.tiffanytimbric.crypto.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class ChunkBufferPoolTest {
+
+    private static final int BUFFER_CAPACITY = 64;
+
+
+    @Test
+    void acquiresClearedBufferWithOneReference() {
+        final ChunkBuffer chunkBuffer = new ChunkBufferPool( BUFFER_CAPACITY, 4, false ).acquire();
+
+        assertEquals( 1, chunkBuffer.refCount() );
+        assertEquals( 0, chunkBuffer.buffer().position() );
+        assertEquals( BUFFER_CAPACITY, chunkBuffer.buffer().limit() );
+        assertEquals( BUFFER_CAPACITY, chunkBuffer.buffer().capacity() );
+        assertEquals( 0, chunkBuffer.firstChunkIndex() );
+        assertFalse( chunkBuffer.holdsLastChunk() );
+    }
+
+    @Test
+    void acquiresNewBuffersFromEmptyPool() {
+        final ChunkBufferPool pool = new ChunkBufferPool( BUFFER_CAPACITY, 4, false );
+
+        assertNotSame( pool.acquire(), pool.acquire() );
+    }
+
+    @Test
+    void releaseHandsTheBufferBackToThePool() {
+        final ChunkBufferPool pool = new ChunkBufferPool( BUFFER_CAPACITY, 4, false );
+        final ChunkBuffer chunkBuffer = pool.acquire();
+        chunkBuffer.buffer().put( new byte[10] ).flip();
+        chunkBuffer.setStreamPosition( 7, true );
+
+        chunkBuffer.release();
+        assertEquals( 0, chunkBuffer.refCount() );
+
+        final ChunkBuffer reacquired = pool.acquire();
+        assertSame( chunkBuffer, reacquired );
+        assertEquals( 1, reacquired.refCount() );
+        assertEquals( 0, reacquired.buffer().position() );
+        assertEquals( BUFFER_CAPACITY, reacquired.buffer().limit() );
+        assertEquals( 0, reacquired.firstChunkIndex() );
+        assertFalse( reacquired.holdsLastChunk() );
+    }
+
+    @Test
+    void rejectsReleasingTwice() {
+        final ChunkBufferPool pool = new ChunkBufferPool( BUFFER_CAPACITY, 4, false );
+        final ChunkBuffer chunkBuffer = pool.acquire();
+        chunkBuffer.release();
+
+        assertThrows( IllegalStateException.class, chunkBuffer::release );
+        assertEquals( 0, chunkBuffer.refCount() );
+        assertSame( chunkBuffer, pool.acquire() );
+        assertNotSame( chunkBuffer, pool.acquire() );
+    }
+
+    @Test
+    void dropsBuffersRecycledIntoFullPool() {
+        final ChunkBufferPool pool = new ChunkBufferPool( BUFFER_CAPACITY, 1, false );
+        final ChunkBuffer first = pool.acquire();
+        final ChunkBuffer second = pool.acquire();
+        first.release();
+        second.release();
+
+        assertSame( first, pool.acquire() );
+        assertNotSame( second, pool.acquire() );
+    }
+
+    @Test
+    void allocatesHeapOrDirectBuffers() {
+        final ChunkBufferPool heapPool = new ChunkBufferPool( BUFFER_CAPACITY, 4, false );
+        final ByteBuffer heapBuffer = heapPool.acquire().buffer();
+        assertFalse( heapPool.isDirect() );
+        assertFalse( heapBuffer.isDirect() );
+        assertTrue( heapBuffer.hasArray() );
+
+        final ChunkBufferPool directPool = new ChunkBufferPool( BUFFER_CAPACITY, 4, true );
+        final ByteBuffer directBuffer = directPool.acquire().buffer();
+        assertTrue( directPool.isDirect() );
+        assertTrue( directBuffer.isDirect() );
+        assertEquals( BUFFER_CAPACITY, directBuffer.capacity() );
+    }
+
+    @Test
+    void sizesBuffersFromTheLargerChunkSize() {
+        final ChunkBufferPool pool = ChunkBufferPool.forCryptosystem( new FixedChunkCryptosystem( 100, 120 ), 3, 4, false );
+
+        assertEquals( 360, pool.getBufferCapacity() );
+        assertEquals( 360, pool.acquire().buffer().capacity() );
+    }
+
+    @Test
+    void rejectsUnsupportedBufferCapacity() {
+        assertThrows( IllegalArgumentException.class, () -> new ChunkBufferPool( 0, 4, false ) );
+    }
+
+
+    private static final class FixedChunkCryptosystem extends CryptosystemBase {
+
+        private FixedChunkCryptosystem( int chunkSizeEncrypt, int chunkSizeDecrypt ) {
+            super( chunkSizeEncrypt, chunkSizeDecrypt );
+        }
+
+        @Override
+        public void init( boolean isBaseNEncode, boolean isBaseNDecode, int baseN ) {
+            // Do nothing.
+        }
+
+        @Nonnull
+        @Override
+        public byte[] encrypt( @Nonnull final byte[] message ) {
+            return message.clone();
+        }
+
+        @Nonnull
+        @Override
+        public byte[] decrypt( @Nonnull final byte[] bytes ) {
+            return bytes.clone();
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.tiffanytimbric.crypto.benchmarks;
+
+import com.tiffanytimbric.crypto.cli.Base16Util;
+import com.tiffanytimbric.crypto.cli.Base32Util;
+import com.tiffanytimbric.crypto.cli.Base64Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This benchmark measures the BaseN codecs used by the command line tool to
+ * encode encrypted chunks and decode them back.  One operation encodes or
+ * decodes one chunk.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class BaseNCodecBenchmark {
+
+    @Param( {"16", "32", "64"} )
+    public int baseN;
+
+    @Param( {"604", "65536"} )
+    public int chunkSize;
+
+    private byte[] bytes;
+    private String text;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        bytes = new byte[chunkSize];
+        new Random( 0 ).nextBytes( bytes );
+        // The command line tool strips the padding and delimiters before decoding.
+        text = encode( bytes ).replace( "=", "" );
+    }
+
+    @Benchmark
+    public String encode() {
+        return encode( bytes );
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return switch ( baseN ) {
+            case 16 -> Base16Util.decode( text );
+            case 32 -> Base32Util.decode( text );
+            default -> Base64Util.decode( text );
+        };
+    }
+
+    @Nonnull
+    private String encode( @Nonnull final byte[] bytes ) {
+        return switch ( baseN ) {
+            case 16 -> Base16Util.encode( bytes );
+            case 32 -> Base32Util.encode( bytes );
+            default -> Base64Util.encode( bytes );
+        };
+    }
+
+}
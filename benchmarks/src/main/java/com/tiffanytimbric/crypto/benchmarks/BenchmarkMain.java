@@ -0,0 +1,28 @@
+package com.tiffanytimbric.crypto.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class runs the JMH benchmarks the same way JMH's own main does, except
+ * the results get written as JSON, to "jmh-result.json", unless the arguments
+ * ask for another result format.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main( @Nonnull final String... args ) throws Exception {
+        final List<String> jmhArgs = new ArrayList<>( Arrays.asList( args ) );
+        if ( !jmhArgs.contains( "-rf" ) ) {
+            jmhArgs.addAll( 0, List.of( "-rf", "json" ) );
+        }
+
+        org.openjdk.jmh.Main.main( jmhArgs.toArray( new String[0] ) );
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.tiffanytimbric.crypto.benchmarks;
+
+import com.tiffanytimbric.crypto.api.CryptoOperation;
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.noop.NoopCryptosystem;
+import com.tiffanytimbric.crypto.ntru.NtrCryptosystem;
+import com.tiffanytimbric.crypto.xor.XorCryptosystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This benchmark measures single threaded encrypt/decrypt throughput of each
+ * cryptosystem across chunk sizes.  One operation processes chunkSize bytes
+ * of plain text, so bytes/sec equals the score times the chunk size.
+ * <p>
+ * NTRU cannot encrypt more than its maximum message length at a time, so its
+ * larger chunk sizes get processed as a run of maximum length messages, the
+ * same way the command line tool splits its input.  XOR keys get generated,
+ * once per chunk size, into the "~/.xorutil" folder.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector" )
+@State( Scope.Benchmark )
+public class CryptosystemBenchmark {
+
+    @Param( {"NOOP", "XOR", "NTRU"} )
+    public String cryptosystemName;
+
+    @Param( {"64", "4096", "65536"} )
+    public int chunkSize;
+
+    @Param( {"ENCRYPT", "DECRYPT"} )
+    public CryptoOperation operation;
+
+    private Cryptosystem cryptosystem;
+    private List<byte[]> messages;
+
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException {
+        cryptosystem = newCryptosystem( cryptosystemName, chunkSize );
+
+        final int messageLength = Math.min( chunkSize, cryptosystem.getChunkSizeEncrypt() );
+        final Random random = new Random( 0 );
+        messages = new ArrayList<>();
+        for ( int remaining = chunkSize; remaining > 0; remaining -= messageLength ) {
+            final byte[] message = new byte[Math.min( remaining, messageLength )];
+            random.nextBytes( message );
+            messages.add( CryptoOperation.ENCRYPT.equals( operation ) ? message : cryptosystem.encrypt( message ) );
+        }
+    }
+
+    @Nonnull
+    private static Cryptosystem newCryptosystem( @Nonnull final String name, int chunkSize ) throws IOException {
+        return switch ( name ) {
+            case "NOOP" -> withChunkSize( new NoopCryptosystem(), chunkSize );
+            case "XOR" -> withChunkSize( new XorCryptosystem(), chunkSize );
+            case "NTRU" -> new NtrCryptosystem(
+                Files.createTempDirectory( "ntrutil-benchmark" ).toString(), true
+            );
+            default -> throw new IllegalArgumentException( String.format(
+                "Unsupported cryptosystem name.  Cryptosystem Name: %s", name
+            ) );
+        };
+    }
+
+    @Nonnull
+    private static Cryptosystem withChunkSize( @Nonnull final Cryptosystem cryptosystem, int chunkSize ) {
+        cryptosystem.setChunkSizeEncrypt( chunkSize );
+        cryptosystem.setChunkSizeDecrypt( chunkSize );
+
+        return cryptosystem;
+    }
+
+    @Benchmark
+    public void process( final Blackhole blackhole ) throws IOException {
+        for ( final byte[] message : messages ) {
+            blackhole.consume( operation.apply( cryptosystem, message ) );
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.tiffanytimbric.crypto.benchmarks;
+
+import com.tiffanytimbric.crypto.api.CryptoOperation;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.ntru.NtrCryptosystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * This benchmark measures NTRU chunks per second as the number of worker
+ * threads grows.  Each invocation hands a fixed batch of chunks to an
+ * {@link ExecutionEngine} of the given size and waits for all of them, so
+ * the reported throughput is chunks/sec.
+ * <p>
+ * The VIRTUAL and VIRTUAL_IO backends need a JVM with virtual threads.  On
+ * older JVMs, run with "-p backend=PLATFORM,FORK_JOIN".
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector" )
+@State( Scope.Benchmark )
+public class NtruThreadScalingBenchmark {
+
+    private static final int CHUNKS_PER_INVOCATION = 256;
+
+    @Param( {"1", "2", "4", "8"} )
+    public int threadCount;
+
+    @Param( {"PLATFORM", "FORK_JOIN", "VIRTUAL", "VIRTUAL_IO"} )
+    public ExecutionEngine.Backend backend;
+
+    @Param( {"ENCRYPT", "DECRYPT"} )
+    public CryptoOperation operation;
+
+    private NtrCryptosystem cryptosystem;
+    private ExecutionEngine executionEngine;
+    private List<byte[]> chunks;
+
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException {
+        cryptosystem = new NtrCryptosystem(
+            Files.createTempDirectory( "ntrutil-benchmark" ).toString(), true
+        );
+        executionEngine = ExecutionEngine.create( backend, threadCount );
+
+        final Random random = new Random( 0 );
+        chunks = new ArrayList<>( CHUNKS_PER_INVOCATION );
+        for ( int i = 0; i < CHUNKS_PER_INVOCATION; i++ ) {
+            final byte[] message = new byte[cryptosystem.getChunkSizeEncrypt()];
+            random.nextBytes( message );
+            chunks.add( CryptoOperation.ENCRYPT.equals( operation ) ? message : cryptosystem.encrypt( message ) );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        executionEngine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( CHUNKS_PER_INVOCATION )
+    public void processChunks( final Blackhole blackhole ) throws InterruptedException, ExecutionException {
+        final List<Future<byte[]>> futures = new ArrayList<>( chunks.size() );
+        for ( final byte[] chunk : chunks ) {
+            futures.add( executionEngine.submit( () -> operation.apply( cryptosystem, chunk ) ) );
+        }
+        for ( final Future<byte[]> future : futures ) {
+            blackhole.consume( future.get() );
+        }
+    }
+
+}
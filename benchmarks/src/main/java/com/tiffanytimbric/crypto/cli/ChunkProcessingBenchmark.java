@@ -0,0 +1,114 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.ChunkBufferPool;
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.noop.NoopCryptosystem;
+import com.tiffanytimbric.crypto.xor.XorCryptosystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * This benchmark measures the command line tool's chunk reader, processor and
+ * writer end to end, over in-memory streams.  It compares the batched
+ * ExecutorService path, the RxJava Flowable pipeline and the pipelined engine,
+ * across thread counts.  One operation encrypts the whole input.  The output gets discarded,
+ * so running with "-prof gc" shows the garbage per chunk of the paths
+ * themselves.
+ * <p>
+ * It lives in the cli package so it can drive the package-private batch loop
+ * directly.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector" )
+@State( Scope.Benchmark )
+public class ChunkProcessingBenchmark {
+
+    private static final int INPUT_LENGTH = 16 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 65536;
+
+    @Param( {"EXECUTOR_SERVICE", "RXJAVA", "PIPELINE"} )
+    public String path;
+
+    @Param( {"1", "2", "4", "8"} )
+    public int threadCount;
+
+    @Param( {"NOOP", "XOR"} )
+    public String cryptosystemName;
+
+    private Config config;
+    private ExecutionEngine executionEngine;
+    private ChunkBufferPool chunkBufferPool;
+    private CryptoMetrics metrics;
+    private byte[] input;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        final Cryptosystem cryptosystem = "XOR".equals( cryptosystemName )
+            ? new XorCryptosystem() : new NoopCryptosystem();
+        cryptosystem.setChunkSizeEncrypt( CHUNK_SIZE );
+        cryptosystem.setChunkSizeDecrypt( CHUNK_SIZE );
+
+        config = new Config(
+            Main.Action.ENCRYPT, cryptosystemName, cryptosystem, CHUNK_SIZE, threadCount,
+            ExecutionEngine.Backend.PLATFORM, false, false, 0, false, null, null, null, "RXJAVA".equals( path ),
+            "PIPELINE".equals( path ), false, false, false, false, false
+        );
+        metrics = new CryptoMetrics( config );
+        executionEngine = ExecutionEngine.create( config.executionBackend(), threadCount );
+        chunkBufferPool = Main.newChunkBufferPool( config );
+
+        input = new byte[INPUT_LENGTH];
+        new Random( 0 ).nextBytes( input );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        executionEngine.close();
+    }
+
+    @Benchmark
+    public void process() throws IOException, ValidationException {
+        final ChunkReader chunkReader = new ChunkReader(
+            config, new BufferedInputStream( new ByteArrayInputStream( input ) ), metrics
+        );
+        final ChunkWriter chunkWriter = new ChunkWriter(
+            config, new BufferedOutputStream( OutputStream.nullOutputStream() ), metrics
+        );
+
+        if ( config.usePipeline() ) {
+            new ChunkPipeline( config, executionEngine, chunkBufferPool, metrics ).run( chunkReader, chunkWriter );
+        }
+        else if ( config.useRxJava() ) {
+            new RxChunkPipeline( config, executionEngine, chunkBufferPool, metrics ).run( chunkReader, chunkWriter );
+        }
+        else {
+            Main.processBatches( config, executionEngine, chunkBufferPool, metrics, chunkReader, chunkWriter );
+        }
+    }
+
+}
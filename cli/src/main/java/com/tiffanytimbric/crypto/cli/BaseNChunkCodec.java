@@ -0,0 +1,170 @@
+package com.tiffanytimbric.crypto.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements the BaseN chunk encodings of {@link Base16Util},
+ * {@link Base32Util} and {@link Base64Util} over byte buffers, so chunks get
+ * encoded and decoded without going through strings.  An encoded chunk is
+ * the padded encoding followed by the chunk delimiter.  Base32 and Base64
+ * chunks have always been delimited by their own padding, so their delimiter
+ * only gets appended when the padding is too short to provide it, such as
+ * for chunks which need no padding at all.
+ * <p>
+ * Any run of padding characters ends a chunk.  Instances are stateless, so
+ * chunks may be encoded and decoded on any number of threads at once.
+ */
+final class BaseNChunkCodec {
+
+    static final byte PAD = '=';
+
+    static final BaseNChunkCodec BASE16 = new BaseNChunkCodec(
+        "0123456789ABCDEF", 4, 1, Base16Util.DELIMITER, false
+    );
+    static final BaseNChunkCodec BASE32 = new BaseNChunkCodec(
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567", 5, 8, Base32Util.DELIMITER, true
+    );
+    static final BaseNChunkCodec BASE64 = new BaseNChunkCodec(
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", 6, 4, Base64Util.DELIMITER, true
+    );
+
+    private final byte[] alphabet;
+    private final int[] decodeTable = new int[256];
+    private final int bitsPerChar;
+    private final int charMask;
+    private final int charsPerBlock;
+    private final byte[] delimiter;
+    private final boolean paddingDelimits;
+
+
+    private BaseNChunkCodec(
+        @Nonnull final String alphabet, int bitsPerChar, int charsPerBlock,
+        @Nonnull final String delimiter, boolean paddingDelimits
+    ) {
+        this.alphabet = alphabet.getBytes( StandardCharsets.US_ASCII );
+        this.bitsPerChar = bitsPerChar;
+        this.charMask = (1 << bitsPerChar) - 1;
+        this.charsPerBlock = charsPerBlock;
+        this.delimiter = delimiter.getBytes( StandardCharsets.US_ASCII );
+        this.paddingDelimits = paddingDelimits;
+
+        Arrays.fill( decodeTable, -1 );
+        for ( int i = 0; i < this.alphabet.length; i++ ) {
+            decodeTable[this.alphabet[i]] = i;
+            decodeTable[Character.toLowerCase( this.alphabet[i] )] = i;
+        }
+        if ( bitsPerChar == 6 ) {
+            // The URL safe Base64 alphabet.
+            decodeTable['-'] = 62;
+            decodeTable['_'] = 63;
+        }
+    }
+
+    @Nonnull
+    static BaseNChunkCodec forBaseN( int baseN ) {
+        return switch ( Main.BaseN.forValue( baseN ) ) {
+            case Sixteen -> BASE16;
+            case ThirtyTwo -> BASE32;
+            case SixtyFour -> BASE64;
+        };
+    }
+
+    /**
+     * @return the most characters the encoding of a chunk of the given length
+     * takes, padding and delimiter included.
+     */
+    int maxEncodedLength( int length ) {
+        final long charCount = ((long) length * 8 + bitsPerChar - 1) / bitsPerChar;
+        final long paddedCharCount = (charCount + charsPerBlock - 1) / charsPerBlock * charsPerBlock;
+
+        return Math.toIntExact( paddedCharCount + delimiter.length );
+    }
+
+    /**
+     * Encodes the chunk's remaining bytes, followed by the padding and chunk
+     * delimiter, into the destination.  The chunk's position does not change.
+     * The destination must be backed by an array, with room for
+     * {@link #maxEncodedLength(int)} characters.
+     */
+    void encode( @Nonnull final ByteBuffer chunk, @Nonnull final ByteBuffer dst ) {
+        final int length = encode( chunk, dst.array(), dst.arrayOffset() + dst.position() );
+        dst.position( dst.position() + length );
+    }
+
+    private int encode( @Nonnull final ByteBuffer chunk, @Nonnull final byte[] dst, int offset ) {
+        int bits = 0;
+        int bitCount = 0;
+        int length = offset;
+        for ( int i = chunk.position(); i < chunk.limit(); i++ ) {
+            bits = (bits << 8) | (chunk.get( i ) & 0xFF);
+            bitCount += 8;
+            while ( bitCount >= bitsPerChar ) {
+                bitCount -= bitsPerChar;
+                dst[length++] = alphabet[(bits >>> bitCount) & charMask];
+            }
+        }
+        if ( bitCount > 0 ) {
+            dst[length++] = alphabet[(bits << (bitsPerChar - bitCount)) & charMask];
+        }
+
+        int padCount = 0;
+        while ( length % charsPerBlock != 0 ) {
+            dst[length++] = PAD;
+            padCount++;
+        }
+
+        if ( !paddingDelimits || padCount < delimiter.length ) {
+            System.arraycopy( delimiter, 0, dst, length, delimiter.length );
+            length += delimiter.length;
+        }
+
+        return length - offset;
+    }
+
+    /**
+     * Decodes the characters of one chunk into the destination buffer, up to
+     * its padding if it has any.  Whitespace gets skipped.
+     */
+    void decode( @Nonnull final ByteBuffer text, @Nonnull final ByteBuffer dst ) throws IOException {
+        int bits = 0;
+        int bitCount = 0;
+        for ( int i = text.position(); i < text.limit(); i++ ) {
+            final byte c = text.get( i );
+            final int value = decodeTable[c & 0xFF];
+            if ( value < 0 ) {
+                if ( c == PAD ) {
+                    break;
+                }
+                if ( Character.isWhitespace( c ) ) {
+                    continue;
+                }
+
+                throw new IOException( String.format(
+                    "Invalid BaseN encoded input.  Character Code: %d, Chunk Offset: %d",
+                    c & 0xFF, i - text.position()
+                ) );
+            }
+
+            bits = (bits << bitsPerChar) | value;
+            bitCount += bitsPerChar;
+            if ( bitCount >= 8 ) {
+                bitCount -= 8;
+                if ( !dst.hasRemaining() ) {
+                    throw new IOException( String.format(
+                        "Unsupported chunk length.  Supported Max Chunk Length: %d", dst.capacity()
+                    ) );
+                }
+
+                dst.put( (byte) (bits >>> bitCount) );
+            }
+        }
+
+        text.position( text.limit() );
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.tiffanytimbric.crypto.cli;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * A range of plain text bytes, as given to the command line tool's range
+ * option in the form "offset:length".
+ */
+public record ByteRange( long offset, long length ) {
+
+    @Nonnull
+    public static ByteRange parse( @Nonnull final String value ) throws ValidationException {
+        final String[] parts = value.split( ":", -1 );
+        try {
+            if ( parts.length == 2 ) {
+                final ByteRange range = new ByteRange( Long.parseLong( parts[0] ), Long.parseLong( parts[1] ) );
+                if ( range.offset() >= 0 && range.length() >= 0 ) {
+                    return range;
+                }
+            }
+        }
+        catch ( NumberFormatException e ) {
+            // Fall through to the validation failure.
+        }
+
+        throw new ValidationException( String.format(
+            "Invalid range.  Expected Format: offset:length, Provided Value: \"%s\"", value
+        ) );
+    }
+
+}
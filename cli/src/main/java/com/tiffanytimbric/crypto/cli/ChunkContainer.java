@@ -0,0 +1,116 @@
+package com.tiffanytimbric.crypto.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class defines the framed container format the command line tool
+ * writes and reads when asked to.  All numbers are big endian.
+ * <p>
+ * <b>Layout</b>
+ * <ol>
+ *     <li>Header: magic number "CRYF", version byte, cryptosystem name
+ *     (modified UTF-8, as written by {@link DataOutputStream#writeUTF}),
+ *     encryption and decryption chunk sizes (ints), baseN byte (0 when the
+ *     frames are binary), session header length (int) and bytes.</li>
+ *     <li>Frames: one per chunk, each an int length followed by the chunk
+ *     exactly as it would have been written unframed.</li>
+ *     <li>End of frames marker: an int length of 0.</li>
+ *     <li>Frame index: the offset of each frame from the start of the
+ *     container (longs).</li>
+ *     <li>Footer: the offset of the frame index (long), the frame count (int)
+ *     and the magic number "CRYI".</li>
+ * </ol>
+ * Reading the footer from the end of the container locates every frame, so
+ * frames can be sought out and decrypted in any order.  Frame n holds the
+ * encryption of the plain text starting at n times the encryption chunk
+ * size.
+ */
+final class ChunkContainer {
+
+    static final int MAGIC = 0x43525946;
+    static final int INDEX_MAGIC = 0x43525949;
+    static final byte VERSION = 1;
+    static final int END_OF_FRAMES = 0;
+    static final int FRAME_LENGTH_BYTES = Integer.BYTES;
+    static final int FOOTER_LENGTH = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+
+    private ChunkContainer() {
+    }
+
+
+    record Header(
+        @Nonnull String cryptosystemName,
+        int chunkSizeEncrypt,
+        int chunkSizeDecrypt,
+        int baseN,
+        @Nonnull byte[] sessionHeader
+    ) {
+
+        @Nonnull
+        static Header read( @Nonnull final InputStream inputStream ) throws IOException {
+            final DataInputStream dataInputStream = new DataInputStream( inputStream );
+            final int magic = dataInputStream.readInt();
+            if ( magic != MAGIC ) {
+                throw new IOException( String.format(
+                    "Invalid container.  Magic Number: 0x%08X, Expected Magic Number: 0x%08X", magic, MAGIC
+                ) );
+            }
+            final byte version = dataInputStream.readByte();
+            if ( version != VERSION ) {
+                throw new IOException( String.format(
+                    "Unsupported container version.  Version: %d, Supported Version: %d", version, VERSION
+                ) );
+            }
+
+            final String cryptosystemName = dataInputStream.readUTF();
+            final int chunkSizeEncrypt = dataInputStream.readInt();
+            final int chunkSizeDecrypt = dataInputStream.readInt();
+            final int baseN = dataInputStream.readUnsignedByte();
+            final int sessionHeaderLength = dataInputStream.readInt();
+            if ( chunkSizeEncrypt <= 0 || chunkSizeDecrypt <= 0 || sessionHeaderLength < 0 ) {
+                throw new IOException( String.format(
+                    "Invalid container header.  Chunk Size Encrypt: %d, Chunk Size Decrypt: %d, Session Header Length: %d",
+                    chunkSizeEncrypt, chunkSizeDecrypt, sessionHeaderLength
+                ) );
+            }
+            if ( baseN != 0 ) {
+                try {
+                    Main.BaseN.forValue( baseN );
+                }
+                catch ( IllegalArgumentException e ) {
+                    throw new IOException( e.getMessage(), e );
+                }
+            }
+            final byte[] sessionHeader = new byte[sessionHeaderLength];
+            dataInputStream.readFully( sessionHeader );
+
+            return new Header( cryptosystemName, chunkSizeEncrypt, chunkSizeDecrypt, baseN, sessionHeader );
+        }
+
+        @Nonnull
+        byte[] toByteArray() throws IOException {
+            final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            final DataOutputStream dataOutputStream = new DataOutputStream( byteArrayOutputStream );
+            dataOutputStream.writeInt( MAGIC );
+            dataOutputStream.writeByte( VERSION );
+            dataOutputStream.writeUTF( cryptosystemName );
+            dataOutputStream.writeInt( chunkSizeEncrypt );
+            dataOutputStream.writeInt( chunkSizeDecrypt );
+            dataOutputStream.writeByte( baseN );
+            dataOutputStream.writeInt( sessionHeader.length );
+            dataOutputStream.write( sessionHeader );
+            dataOutputStream.flush();
+
+            return byteArrayOutputStream.toByteArray();
+        }
+
+    }
+
+}
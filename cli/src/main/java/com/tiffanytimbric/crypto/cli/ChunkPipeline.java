@@ -0,0 +1,153 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.ChunkBuffer;
+import com.tiffanytimbric.crypto.api.ChunkBufferPool;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements a three stage read/process/write pipeline.  A reader
+ * task, run on one of the {@link ExecutionEngine}'s I/O threads, inputs
+ * chunks and submits each one to the engine's crypto workers.  The calling thread acts as the writer, outputting
+ * the processed chunks in the same order they were read.
+ * <p>
+ * The stages are connected by a bounded queue of pending results, so the
+ * reader blocks once it gets too far ahead of the writer.  The number of
+ * chunks held in memory never exceeds the queue capacity plus the one chunk
+ * being read.  Chunk buffers come from a {@link ChunkBufferPool} and go back
+ * to it once written.
+ * <p>
+ * When writing fails, the reader gets cancelled and the pending results
+ * dropped, so a reader blocked on the full queue does not keep the engine
+ * from shutting down.
+ */
+final class ChunkPipeline {
+
+    private static final int QUEUE_CAPACITY_PER_THREAD = 2;
+    private static final Future<ChunkBuffer> END_OF_INPUT = CompletableFuture.completedFuture( null );
+
+    private final Config config;
+    private final ExecutionEngine executionEngine;
+    private final ChunkBufferPool chunkBufferPool;
+    private final CryptoMetrics metrics;
+    private final BlockingQueue<Future<ChunkBuffer>> pendingOutputs;
+    private volatile boolean stopped = false;
+
+
+    ChunkPipeline(
+        @Nonnull final Config config,
+        @Nonnull final ExecutionEngine executionEngine,
+        @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final CryptoMetrics metrics
+    ) {
+        this.config = config;
+        this.executionEngine = executionEngine;
+        this.chunkBufferPool = chunkBufferPool;
+        this.metrics = metrics;
+        this.pendingOutputs = new ArrayBlockingQueue<>(
+            Math.max( 1, config.threadCount() ) * QUEUE_CAPACITY_PER_THREAD
+        );
+    }
+
+    /**
+     * Runs the pipeline until the input is exhausted and every processed chunk
+     * has been written.
+     */
+    void run(
+        @Nonnull final ChunkReader chunkReader,
+        @Nonnull final ChunkWriter chunkWriter
+    ) throws IOException, ValidationException {
+        final Future<Void> reader = executionEngine.submitIo( () -> {
+            read( chunkReader );
+
+            return null;
+        } );
+
+        try {
+            write( chunkWriter );
+        }
+        catch ( IOException | ValidationException | RuntimeException e ) {
+            stop( reader );
+
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels the reader, interrupting it if it is blocked on the queue, and
+     * the chunks still pending.
+     */
+    private void stop( @Nonnull final Future<Void> reader ) {
+        stopped = true;
+        reader.cancel( true );
+
+        Future<ChunkBuffer> pendingOutput;
+        while ( (pendingOutput = pendingOutputs.poll()) != null ) {
+            pendingOutput.cancel( false );
+        }
+    }
+
+    private void read( @Nonnull final ChunkReader chunkReader ) {
+        try {
+            while ( true ) {
+                final ChunkBuffer input = chunkBufferPool.acquire();
+                if ( !chunkReader.read( input ).hasRemaining() ) {
+                    input.release();
+                    break;
+                }
+
+                pendingOutputs.put( executionEngine.submit(
+                    () -> Main.processChunk( input, config, chunkBufferPool, metrics )
+                ) );
+                metrics.chunkQueued();
+            }
+
+            pendingOutputs.put( END_OF_INPUT );
+        }
+        catch ( Throwable t ) {
+            if ( !stopped ) {
+                Main.exit( t );
+            }
+        }
+    }
+
+    private void write( @Nonnull final ChunkWriter chunkWriter ) throws IOException, ValidationException {
+        try {
+            while ( true ) {
+                final Future<ChunkBuffer> pendingOutput = pendingOutputs.take();
+                if ( pendingOutput == END_OF_INPUT ) {
+                    break;
+                }
+
+                final ChunkBuffer output = pendingOutput.get();
+                metrics.chunkDequeued();
+                Main.validateOutput( output, config );
+
+                chunkWriter.write( output.buffer() );
+                output.release();
+
+                if ( pendingOutputs.isEmpty() ) {
+                    chunkWriter.flush();
+                }
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            Main.exit( Main.ExitCode.INTERRUPTED );
+        }
+        catch ( ExecutionException e ) {
+            Main.exit( e.getCause() );
+        }
+
+        chunkWriter.flush();
+    }
+
+}
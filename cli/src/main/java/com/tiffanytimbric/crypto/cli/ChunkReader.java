@@ -0,0 +1,290 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.ChunkBuffer;
+import com.tiffanytimbric.crypto.api.SessionCryptosystem;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements the input side of the command line tool.  It reads
+ * chunks straight into the given buffers: binary chunks with bulk reads, and
+ * BaseN encoded chunks by scanning blocks of characters for the chunk
+ * delimiter and copying the characters up to it.  Decoding is left to the
+ * workers, so the reading thread only does I/O.  In framed mode chunks get
+ * read one {@link ChunkContainer} frame at a time, whatever their encoding.
+ * <p>
+ * Instances are not thread safe.  One reader serves the whole input, so the
+ * characters it has scanned ahead are not lost between chunks.  The time
+ * spent reading gets recorded as read stall time.
+ * <p>
+ * Chunks read into a {@link ChunkBuffer} get their position in the stream
+ * recorded on it.  For a {@link SessionCryptosystem}, the reader peeks past
+ * each chunk, so the buffer holding the stream's last chunk says so.
+ */
+final class ChunkReader {
+
+    private static final int TEXT_BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final ReadableByteChannel channel;
+    private final CryptoMetrics metrics;
+    private final int chunkSize;
+    private final int cryptosystemChunkSize;
+    private final boolean framed;
+    private final boolean tracksLastChunk;
+    private final byte[] text;
+    private int textPosition = 0;
+    private int textLimit = 0;
+    private int frameCount = 0;
+    private boolean endOfFrames = false;
+    private long chunkCount = 0;
+
+
+    ChunkReader(
+        @Nonnull final Config config, @Nonnull final InputStream inputStream, @Nonnull final CryptoMetrics metrics
+    ) {
+        this.inputStream = inputStream.markSupported() ? inputStream : new BufferedInputStream( inputStream );
+        this.channel = Channels.newChannel( this.inputStream );
+        this.metrics = metrics;
+        this.chunkSize = config.chunkSize() * Main.getChunksPerTask( config );
+        this.cryptosystemChunkSize = config.chunkSize();
+        this.framed = config.framed() && Main.Action.DECRYPT.equals( config.action() );
+        this.tracksLastChunk = config.cryptosystem() instanceof SessionCryptosystem;
+        this.text = config.baseNDecodeInput() && !framed ? new byte[TEXT_BUFFER_SIZE] : null;
+    }
+
+    /**
+     * Reads the next chunk into the buffer.  Binary chunks get read as many
+     * cryptosystem chunks at a time as one worker task processes.
+     *
+     * @return the buffer, ready to be read from.  Nothing remains in it once
+     * the end of the input has been reached.
+     */
+    @Nonnull
+    ByteBuffer read( @Nonnull final ByteBuffer buffer ) throws IOException {
+        return read( buffer, chunkSize );
+    }
+
+    /**
+     * Reads the next chunk into the chunk buffer, as
+     * {@link #read(ByteBuffer)} does, and records the position of its
+     * cryptosystem chunks in the stream on it.
+     *
+     * @return the chunk buffer's buffer, ready to be read from.
+     */
+    @Nonnull
+    ByteBuffer read( @Nonnull final ChunkBuffer chunkBuffer ) throws IOException {
+        final ByteBuffer chunk = read( chunkBuffer.buffer() );
+        if ( !chunk.hasRemaining() ) {
+            return chunk;
+        }
+
+        final long startNanos = System.nanoTime();
+        final boolean holdsLastChunk = tracksLastChunk && isEndOfInput( chunk );
+        metrics.recordRead( 0, System.nanoTime() - startNanos );
+
+        chunkBuffer.setStreamPosition( chunkCount, holdsLastChunk );
+        chunkCount += framed || text != null
+            ? 1 : (chunk.remaining() + cryptosystemChunkSize - 1) / cryptosystemChunkSize;
+
+        return chunk;
+    }
+
+    /**
+     * @return the number of cryptosystem chunks read into chunk buffers so
+     * far.
+     */
+    long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Reads the next chunk into the buffer.  A binary chunk is at most
+     * maxLength bytes long.  A BaseN encoded chunk runs up to its delimiter,
+     * which is left out, and still needs decoding.  A framed chunk is the
+     * whole frame.
+     */
+    @Nonnull
+    ByteBuffer read( @Nonnull final ByteBuffer buffer, int maxLength ) throws IOException {
+        final long startNanos = System.nanoTime();
+        final ByteBuffer chunk = readChunk( buffer, maxLength );
+        metrics.recordRead( chunk.remaining(), System.nanoTime() - startNanos );
+
+        return chunk;
+    }
+
+    @Nonnull
+    private ByteBuffer readChunk( @Nonnull final ByteBuffer buffer, int maxLength ) throws IOException {
+        buffer.clear();
+        if ( framed ) {
+            return readFrame( buffer );
+        }
+        if ( text == null ) {
+            final int numRead = readNBytes( buffer, 0, Math.min( maxLength, buffer.capacity() ) );
+
+            return buffer.limit( numRead );
+        }
+
+        return readBaseN( buffer );
+    }
+
+    @Nonnull
+    private ByteBuffer readBaseN( @Nonnull final ByteBuffer buffer ) throws IOException {
+        boolean started = false;
+        while ( textPosition < textLimit || fillText() ) {
+            if ( !started ) {
+                while ( textPosition < textLimit && isSeparator( text[textPosition] ) ) {
+                    textPosition++;
+                }
+                if ( textPosition == textLimit ) {
+                    continue;
+                }
+
+                started = true;
+            }
+
+            int end = textPosition;
+            while ( end < textLimit && text[end] != BaseNChunkCodec.PAD ) {
+                end++;
+            }
+
+            final int length = end - textPosition;
+            if ( length > buffer.remaining() ) {
+                throw new IOException( String.format(
+                    "Unsupported chunk length.  Supported Max Chunk Length: %d", buffer.capacity()
+                ) );
+            }
+
+            buffer.put( text, textPosition, length );
+            textPosition = end;
+            if ( end < textLimit ) {
+                break;
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    @Nonnull
+    private ByteBuffer readFrame( @Nonnull final ByteBuffer buffer ) throws IOException {
+        if ( endOfFrames ) {
+            return buffer.limit( 0 );
+        }
+
+        final int numLengthRead = readNBytes( buffer, 0, ChunkContainer.FRAME_LENGTH_BYTES );
+        if ( numLengthRead < ChunkContainer.FRAME_LENGTH_BYTES ) {
+            throw new IOException( String.format(
+                "Truncated container, the end of frames marker is missing.  Frame Count: %d", frameCount
+            ) );
+        }
+
+        final int frameLength = buffer.getInt( 0 );
+        if ( frameLength == ChunkContainer.END_OF_FRAMES ) {
+            endOfFrames = true;
+
+            return buffer.limit( 0 );
+        }
+        if ( frameLength < 0 || frameLength > buffer.capacity() ) {
+            throw new IOException( String.format(
+                "Unsupported chunk length.  Supported Max Chunk Length: %d, Chunk Length: %d",
+                buffer.capacity(), frameLength
+            ) );
+        }
+
+        final int numRead = readNBytes( buffer, 0, frameLength );
+        if ( numRead < frameLength ) {
+            throw new IOException( String.format(
+                "Truncated frame.  Frame Index: %d, Frame Length: %d, Read Length: %d",
+                frameCount, frameLength, numRead
+            ) );
+        }
+        frameCount++;
+
+        return buffer.limit( numRead );
+    }
+
+    /**
+     * Reads into the buffer, starting at the given index, until length bytes
+     * have been read or the input ends.  Heap buffers get read into through
+     * their backing arrays, direct buffers through a channel.
+     *
+     * @return the number of bytes read.
+     */
+    private int readNBytes( @Nonnull final ByteBuffer buffer, int index, int length ) throws IOException {
+        if ( buffer.hasArray() ) {
+            return inputStream.readNBytes( buffer.array(), buffer.arrayOffset() + index, length );
+        }
+
+        final ByteBuffer target = buffer.duplicate().limit( index + length ).position( index );
+        while ( target.hasRemaining() ) {
+            if ( channel.read( target ) < 0 ) {
+                break;
+            }
+        }
+
+        return target.position() - index;
+    }
+
+    /**
+     * Peeks past the chunk just read, without consuming anything but chunk
+     * separators.
+     *
+     * @return whether the chunk is the last one of the input.
+     */
+    private boolean isEndOfInput( @Nonnull final ByteBuffer chunk ) throws IOException {
+        if ( framed ) {
+            if ( endOfFrames ) {
+                return true;
+            }
+
+            inputStream.mark( ChunkContainer.FRAME_LENGTH_BYTES );
+            final byte[] frameLength = inputStream.readNBytes( ChunkContainer.FRAME_LENGTH_BYTES );
+            inputStream.reset();
+
+            return frameLength.length < ChunkContainer.FRAME_LENGTH_BYTES
+                || ByteBuffer.wrap( frameLength ).getInt() == ChunkContainer.END_OF_FRAMES;
+        }
+        if ( text != null ) {
+            while ( true ) {
+                while ( textPosition < textLimit && isSeparator( text[textPosition] ) ) {
+                    textPosition++;
+                }
+                if ( textPosition < textLimit ) {
+                    return false;
+                }
+                if ( !fillText() ) {
+                    return true;
+                }
+            }
+        }
+        if ( chunk.remaining() < Math.min( chunkSize, chunk.capacity() ) ) {
+            return true;
+        }
+
+        inputStream.mark( 1 );
+        final boolean endOfInput = inputStream.read() < 0;
+        inputStream.reset();
+
+        return endOfInput;
+    }
+
+    private static boolean isSeparator( byte c ) {
+        return c == BaseNChunkCodec.PAD || Character.isWhitespace( c );
+    }
+
+    private boolean fillText() throws IOException {
+        final int numRead = inputStream.read( text, 0, text.length );
+        textPosition = 0;
+        textLimit = Math.max( 0, numRead );
+
+        return numRead > 0;
+    }
+
+}
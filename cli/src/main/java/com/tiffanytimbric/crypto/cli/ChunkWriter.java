@@ -0,0 +1,115 @@
+package com.tiffanytimbric.crypto.cli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements the output side of the command line tool.  It writes
+ * chunks as they come from the workers, which have already BaseN encoded them
+ * when asked to, so the writing thread only does I/O.  Direct chunks get
+ * written through a channel, without allocating a copy of them.  In framed mode each
+ * chunk gets written as a {@link ChunkContainer} frame, and {@link #finish()}
+ * appends the frame index.
+ * <p>
+ * Instances are not thread safe.  The time spent writing and flushing gets
+ * recorded as write stall time.
+ */
+final class ChunkWriter {
+
+    private final OutputStream outputStream;
+    private final WritableByteChannel channel;
+    private final CryptoMetrics metrics;
+    private final boolean framed;
+    private final ByteBuffer scratch = ByteBuffer.allocate( Long.BYTES );
+    private long position = 0;
+    private long[] frameOffsets = new long[16];
+    private int frameCount = 0;
+
+
+    ChunkWriter(
+        @Nonnull final Config config, @Nonnull final OutputStream outputStream, @Nonnull final CryptoMetrics metrics
+    ) {
+        this.outputStream = outputStream;
+        this.channel = Channels.newChannel( outputStream );
+        this.metrics = metrics;
+        this.framed = config.framed() && Main.Action.ENCRYPT.equals( config.action() );
+    }
+
+    /**
+     * Writes the container header.  It must precede the first chunk.
+     */
+    void writeHeader( @Nonnull final ChunkContainer.Header header ) throws IOException {
+        final byte[] bytes = header.toByteArray();
+        outputStream.write( bytes );
+        position += bytes.length;
+    }
+
+    /**
+     * Writes the chunk's remaining bytes.  The chunk's position does not
+     * change.
+     */
+    void write( @Nonnull final ByteBuffer chunk ) throws IOException {
+        final long startNanos = System.nanoTime();
+        if ( framed ) {
+            if ( frameCount == frameOffsets.length ) {
+                frameOffsets = Arrays.copyOf( frameOffsets, frameCount * 2 );
+            }
+            frameOffsets[frameCount++] = position;
+            writeInt( chunk.remaining() );
+        }
+
+        if ( chunk.hasArray() ) {
+            outputStream.write( chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining() );
+        }
+        else {
+            final ByteBuffer source = chunk.duplicate();
+            while ( source.hasRemaining() ) {
+                channel.write( source );
+            }
+        }
+        position += chunk.remaining();
+        metrics.recordWrite( chunk.remaining(), System.nanoTime() - startNanos );
+    }
+
+    void flush() throws IOException {
+        final long startNanos = System.nanoTime();
+        outputStream.flush();
+        metrics.recordFlush( System.nanoTime() - startNanos );
+    }
+
+    /**
+     * Ends the output.  In framed mode, writes the end of frames marker, the
+     * frame index and the footer.
+     */
+    void finish() throws IOException {
+        if ( framed ) {
+            writeInt( ChunkContainer.END_OF_FRAMES );
+            final long indexOffset = position;
+            for ( int i = 0; i < frameCount; i++ ) {
+                writeLong( frameOffsets[i] );
+            }
+            writeLong( indexOffset );
+            writeInt( frameCount );
+            writeInt( ChunkContainer.INDEX_MAGIC );
+        }
+
+        flush();
+    }
+
+    private void writeInt( int value ) throws IOException {
+        outputStream.write( scratch.putInt( 0, value ).array(), 0, Integer.BYTES );
+        position += Integer.BYTES;
+    }
+
+    private void writeLong( long value ) throws IOException {
+        outputStream.write( scratch.putLong( 0, value ).array(), 0, Long.BYTES );
+        position += Long.BYTES;
+    }
+
+}
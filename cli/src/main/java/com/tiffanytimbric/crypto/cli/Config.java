@@ -1,17 +1,32 @@
 package com.tiffanytimbric.crypto.cli;
 
 import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+
+import java.nio.file.Path;
 
 
 public record Config(
     Main.Action action,
+    String cryptosystemName,
     Cryptosystem cryptosystem,
     int chunkSize,
     int threadCount,
+    ExecutionEngine.Backend executionBackend,
     boolean baseNDecodeInput,
     boolean baseNEncodeOutput,
     int baseN,
-    boolean useRxJava
+    boolean framed,
+    ByteRange range,
+    Path inputFile,
+    Path outputFile,
+    boolean useRxJava,
+    boolean usePipeline,
+    boolean verbose,
+    boolean stats,
+    boolean jmx,
+    boolean offHeap,
+    boolean jitWarmUp
 ) {
 
 }
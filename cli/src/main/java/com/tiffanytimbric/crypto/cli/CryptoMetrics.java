@@ -0,0 +1,355 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.SessionCryptosystem;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * This class collects the runtime metrics of one command line run: bytes in
+ * and out, a latency histogram of the encryption or decryption of each
+ * cryptosystem chunk, BaseN codec time, worker busy time, the time the reader
+ * and writer spend blocked on I/O, the number of chunks in flight between
+ * them, the time the cryptosystem spent generating missing keys, loading its
+ * keys ahead of the first chunk and warming up the JIT, and the time from
+ * process startup to the first output byte.
+ * <p>
+ * The metrics are exposed through {@link CryptoMetricsMXBean} once
+ * {@link #registerMBean()} gets called, and summarized by
+ * {@link #printSummary(PrintStream)}.  Recording is thread safe.
+ */
+final class CryptoMetrics implements CryptoMetricsMXBean {
+
+    private static final String OBJECT_NAME_FORMAT = "com.tiffanytimbric.crypto:type=CryptoMetrics,cryptosystem=%s";
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos( 1 );
+    private static final double BYTES_PER_MEBIBYTE = 1024 * 1024;
+
+    private final String cryptosystemName;
+    private final Cryptosystem cryptosystem;
+    private final Main.Action action;
+    private final int threadCount;
+    private volatile long startNanos = System.nanoTime();
+    private volatile long finishNanos = 0;
+    private final long processStartNanos = getProcessStartNanos();
+    private final AtomicLong firstByteNanos = new AtomicLong();
+    private final boolean jitWarmUpRequested;
+    private volatile long preloadNanos = 0;
+    private volatile long jitWarmUpNanos = 0;
+    private volatile boolean preloadFinished = false;
+    private volatile boolean jitWarmUpFinished = false;
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LatencyHistogram chunkLatency = new LatencyHistogram();
+    private final LongAdder baseNDecodeNanos = new LongAdder();
+    private final LongAdder baseNEncodeNanos = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder readStallNanos = new LongAdder();
+    private final LongAdder writeStallNanos = new LongAdder();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+
+    CryptoMetrics( @Nonnull final Config config ) {
+        this.cryptosystemName = config.cryptosystemName();
+        this.cryptosystem = config.cryptosystem();
+        this.action = config.action();
+        this.threadCount = Math.max( 1, config.threadCount() );
+        this.jitWarmUpRequested = config.jitWarmUp() && !(config.cryptosystem() instanceof SessionCryptosystem);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.  Looking the
+     * server up costs a few hundred milliseconds on first use, which is why
+     * it only happens when asked for.
+     */
+    void registerMBean() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(
+            this, new ObjectName( String.format( OBJECT_NAME_FORMAT, ObjectName.quote( cryptosystemName ) ) )
+        );
+    }
+
+    void recordRead( long length, long nanos ) {
+        bytesIn.add( length );
+        readStallNanos.add( nanos );
+    }
+
+    void recordWrite( long length, long nanos ) {
+        if ( length > 0 && firstByteNanos.get() == 0 ) {
+            firstByteNanos.compareAndSet( 0, System.nanoTime() );
+        }
+        bytesOut.add( length );
+        writeStallNanos.add( nanos );
+    }
+
+    void recordFlush( long nanos ) {
+        writeStallNanos.add( nanos );
+    }
+
+    void recordChunk( long nanos ) {
+        chunkLatency.record( nanos );
+    }
+
+    /**
+     * Records chunks which got encrypted or decrypted together, as one batch
+     * or one in place pass, each at the mean latency of the chunks.
+     */
+    void recordChunks( long nanos, int chunkCount ) {
+        if ( chunkCount > 0 ) {
+            chunkLatency.record( nanos / chunkCount, chunkCount );
+        }
+    }
+
+    void recordBaseNDecode( long nanos ) {
+        baseNDecodeNanos.add( nanos );
+    }
+
+    void recordBaseNEncode( long nanos ) {
+        baseNEncodeNanos.add( nanos );
+    }
+
+    void recordBusy( long nanos ) {
+        busyNanos.add( nanos );
+    }
+
+    void recordPreload( long nanos ) {
+        preloadNanos = nanos;
+        preloadFinished = true;
+    }
+
+    void recordJitWarmUp( long nanos ) {
+        jitWarmUpNanos = nanos;
+        jitWarmUpFinished = true;
+    }
+
+    void chunkQueued() {
+        maxQueueDepth.accumulateAndGet( queueDepth.incrementAndGet(), Math::max );
+    }
+
+    void chunkDequeued() {
+        queueDepth.decrementAndGet();
+    }
+
+    /**
+     * Restarts the clock the rates and utilization get computed against.
+     */
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops the clock the rates and utilization get computed against.
+     */
+    void finish() {
+        finishNanos = System.nanoTime();
+    }
+
+    void printSummary( @Nonnull final PrintStream printStream ) {
+        final String operation = getOperation();
+        printStream.printf( "Stats: %s %s%n", cryptosystemName, operation );
+        printStream.printf( "    Elapsed: %.3f s%n", getElapsedNanos() / NANOS_PER_SECOND );
+        printStream.printf(
+            "    Bytes In: %d (%.1f MiB/s), Bytes Out: %d (%.1f MiB/s)%n",
+            getBytesIn(), getBytesInPerSecond() / BYTES_PER_MEBIBYTE,
+            getBytesOut(), getBytesOutPerSecond() / BYTES_PER_MEBIBYTE
+        );
+        printStream.printf(
+            "    Chunk %s Latency (us): count %d, mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+            operation, getChunkCount(), micros( getChunkLatencyMeanNanos() ), micros( getChunkLatencyP50Nanos() ),
+            micros( getChunkLatencyP90Nanos() ), micros( getChunkLatencyP99Nanos() ),
+            micros( getChunkLatencyMaxNanos() )
+        );
+        printStream.printf(
+            "    BaseN Decode: %.3f s, BaseN Encode: %.3f s%n",
+            getBaseNDecodeNanos() / NANOS_PER_SECOND, getBaseNEncodeNanos() / NANOS_PER_SECOND
+        );
+        printStream.printf(
+            "    Worker Utilization: %.1f%% of %d threads%n", getWorkerUtilization() * 100, threadCount
+        );
+        printStream.printf(
+            "    Read Stall: %.3f s, Write Stall: %.3f s, Max Queue Depth: %d%n",
+            getReadStallNanos() / NANOS_PER_SECOND, getWriteStallNanos() / NANOS_PER_SECOND, getMaxQueueDepth()
+        );
+        printStream.printf(
+            "    Startup To First Byte: %.3f s, Key Preload: %s%s%n",
+            getStartupToFirstByteNanos() / NANOS_PER_SECOND, formatWarmUp( preloadFinished, getPreloadNanos() ),
+            jitWarmUpRequested ? ", JIT Warm-Up: " + formatWarmUp( jitWarmUpFinished, getJitWarmUpNanos() ) : ""
+        );
+        if ( getKeyGenerationNanos() > 0 ) {
+            printStream.printf( "    Key Generation: %.3f s%n", getKeyGenerationNanos() / NANOS_PER_SECOND );
+        }
+    }
+
+    @Override
+    public String getCryptosystemName() {
+        return cryptosystemName;
+    }
+
+    @Override
+    public String getOperation() {
+        return Main.Action.DECRYPT.equals( action ) ? "Decrypt" : "Encrypt";
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        final long finishNanos = this.finishNanos;
+
+        return (finishNanos != 0 ? finishNanos : System.nanoTime()) - startNanos;
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public double getBytesInPerSecond() {
+        return perSecond( getBytesIn() );
+    }
+
+    @Override
+    public double getBytesOutPerSecond() {
+        return perSecond( getBytesOut() );
+    }
+
+    @Override
+    public long getChunkCount() {
+        return chunkLatency.getCount();
+    }
+
+    @Override
+    public long getChunkLatencyMeanNanos() {
+        return chunkLatency.getMean();
+    }
+
+    @Override
+    public long getChunkLatencyP50Nanos() {
+        return chunkLatency.getValueAtPercentile( 50 );
+    }
+
+    @Override
+    public long getChunkLatencyP90Nanos() {
+        return chunkLatency.getValueAtPercentile( 90 );
+    }
+
+    @Override
+    public long getChunkLatencyP99Nanos() {
+        return chunkLatency.getValueAtPercentile( 99 );
+    }
+
+    @Override
+    public long getChunkLatencyMaxNanos() {
+        return chunkLatency.getMax();
+    }
+
+    @Override
+    public long getBaseNDecodeNanos() {
+        return baseNDecodeNanos.sum();
+    }
+
+    @Override
+    public long getBaseNEncodeNanos() {
+        return baseNEncodeNanos.sum();
+    }
+
+    @Override
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public double getWorkerUtilization() {
+        final long elapsedNanos = getElapsedNanos();
+
+        return elapsedNanos <= 0 ? 0 : Math.min( 1, busyNanos.sum() / ((double) elapsedNanos * threadCount) );
+    }
+
+    @Override
+    public long getReadStallNanos() {
+        return readStallNanos.sum();
+    }
+
+    @Override
+    public long getWriteStallNanos() {
+        return writeStallNanos.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    @Override
+    public long getKeyGenerationNanos() {
+        return cryptosystem.getKeyGenerationNanos();
+    }
+
+    @Override
+    public long getStartupToFirstByteNanos() {
+        final long firstByteNanos = this.firstByteNanos.get();
+
+        return firstByteNanos != 0 ? firstByteNanos - processStartNanos : 0;
+    }
+
+    @Override
+    public long getPreloadNanos() {
+        return preloadNanos;
+    }
+
+    @Override
+    public long getJitWarmUpNanos() {
+        return jitWarmUpNanos;
+    }
+
+    /**
+     * The warm-up runs on a daemon thread which nothing waits on, so it may
+     * not have finished by the time the summary gets printed.
+     */
+    @Nonnull
+    private static String formatWarmUp( boolean finished, long nanos ) {
+        return finished ? String.format( "%.3f s", nanos / NANOS_PER_SECOND ) : "not finished";
+    }
+
+    /**
+     * @return the process start time on the {@link System#nanoTime()} clock,
+     * as near as the platform reports it, or now when it does not.
+     */
+    private static long getProcessStartNanos() {
+        final long nowNanos = System.nanoTime();
+
+        return ProcessHandle.current().info().startInstant()
+            .map( startInstant -> nowNanos - TimeUnit.MILLISECONDS.toNanos(
+                System.currentTimeMillis() - startInstant.toEpochMilli()
+            ) )
+            .orElse( nowNanos );
+    }
+
+    private double perSecond( long value ) {
+        final long elapsedNanos = getElapsedNanos();
+
+        return elapsedNanos <= 0 ? 0 : value * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    private static double micros( long nanos ) {
+        return nanos / 1000.0;
+    }
+
+}
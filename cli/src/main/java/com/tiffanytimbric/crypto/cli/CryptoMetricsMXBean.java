@@ -0,0 +1,60 @@
+package com.tiffanytimbric.crypto.cli;
+
+/**
+ * The JMX view of a command line run's {@link CryptoMetrics}, registered as
+ * "com.tiffanytimbric.crypto:type=CryptoMetrics,cryptosystem=&lt;name&gt;".
+ * Times are in nanoseconds.
+ */
+public interface CryptoMetricsMXBean {
+
+    String getCryptosystemName();
+
+    String getOperation();
+
+    long getElapsedNanos();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    double getBytesInPerSecond();
+
+    double getBytesOutPerSecond();
+
+    long getChunkCount();
+
+    long getChunkLatencyMeanNanos();
+
+    long getChunkLatencyP50Nanos();
+
+    long getChunkLatencyP90Nanos();
+
+    long getChunkLatencyP99Nanos();
+
+    long getChunkLatencyMaxNanos();
+
+    long getBaseNDecodeNanos();
+
+    long getBaseNEncodeNanos();
+
+    int getThreadCount();
+
+    double getWorkerUtilization();
+
+    long getReadStallNanos();
+
+    long getWriteStallNanos();
+
+    int getQueueDepth();
+
+    int getMaxQueueDepth();
+
+    long getKeyGenerationNanos();
+
+    long getStartupToFirstByteNanos();
+
+    long getPreloadNanos();
+
+    long getJitWarmUpNanos();
+
+}
@@ -0,0 +1,89 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.SessionCryptosystem;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class gets the selected cryptosystem ready on a background thread
+ * while the main thread goes on to open, and start reading, the input.  It
+ * first has the cryptosystem load its keys and parameters, which the first
+ * chunk would otherwise wait on.  When asked to, it then runs the encrypt
+ * and decrypt loop over a scratch chunk for a bounded number of iterations,
+ * so the JIT compiles the hot loop before, or while, the first real chunks
+ * go through it.
+ * <p>
+ * Nothing waits on the warm-up.  The cryptosystems load their keys at most
+ * once, so a chunk which arrives before the load finishes waits on that
+ * load rather than starting another.  A failed load gets left for the first
+ * chunk to run into, and report, again.
+ */
+final class CryptosystemWarmUp implements Runnable {
+
+    private static final int JIT_WARM_UP_ITERATIONS = 10_000;
+    private static final long JIT_WARM_UP_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos( 250 );
+    private static final int JIT_WARM_UP_MAX_CHUNK_SIZE = 64 * 1024;
+
+    private final Config config;
+    private final CryptoMetrics metrics;
+
+
+    private CryptosystemWarmUp( @Nonnull final Config config, @Nonnull final CryptoMetrics metrics ) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts warming the cryptosystem up on a daemon thread.
+     */
+    static void start( @Nonnull final Config config, @Nonnull final CryptoMetrics metrics ) {
+        final Thread thread = new Thread( new CryptosystemWarmUp( config, metrics ), "crypto-warmup" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        final Cryptosystem cryptosystem = config.cryptosystem();
+        try {
+            final long startNanos = System.nanoTime();
+            cryptosystem.warmUp();
+            metrics.recordPreload( System.nanoTime() - startNanos );
+
+            if ( config.jitWarmUp() && !(cryptosystem instanceof SessionCryptosystem) ) {
+                final long jitStartNanos = System.nanoTime();
+                warmUpHotLoop( cryptosystem );
+                metrics.recordJitWarmUp( System.nanoTime() - jitStartNanos );
+            }
+        }
+        catch ( IOException | RuntimeException e ) {
+            if ( config.verbose() ) {
+                System.err.printf( "Warm-up failed.  Cause: %s%n", e );
+            }
+        }
+    }
+
+    /**
+     * Round trips a scratch chunk through the same calls the workers make.
+     * Session cryptosystems get skipped, as encrypting would use up session
+     * state.
+     */
+    private static void warmUpHotLoop( @Nonnull final Cryptosystem cryptosystem ) throws IOException {
+        final byte[] chunk = new byte[Math.min( cryptosystem.getChunkSizeEncrypt(), JIT_WARM_UP_MAX_CHUNK_SIZE )];
+        final long deadlineNanos = System.nanoTime() + JIT_WARM_UP_MAX_NANOS;
+        for ( int i = 0; i < JIT_WARM_UP_ITERATIONS && System.nanoTime() < deadlineNanos; i++ ) {
+            if ( cryptosystem.supportsInPlace() ) {
+                cryptosystem.encryptInPlace( chunk, 0, chunk.length );
+                cryptosystem.decryptInPlace( chunk, 0, chunk.length );
+            }
+            else {
+                cryptosystem.decrypt( cryptosystem.encrypt( chunk ) );
+            }
+        }
+    }
+
+}
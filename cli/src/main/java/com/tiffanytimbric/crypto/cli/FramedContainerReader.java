@@ -0,0 +1,233 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.PositionalCryptosystem;
+import com.tiffanytimbric.crypto.api.SessionCryptosystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements random access decryption of a {@link ChunkContainer}
+ * written by the command line tool's framed mode.  Opening it reads the
+ * header and footer only.  Decrypting a range of the plain text seeks to the
+ * first frame covering it and decrypts just the frames the range spans, so
+ * the work done is proportional to the range, not the container.
+ * <p>
+ * The cryptosystem's chunk sizes get set from the container header, and a
+ * session cryptosystem's session gets begun from it.  Instances are not
+ * thread safe.
+ */
+public final class FramedContainerReader {
+
+    private final SeekableByteChannel channel;
+    private final Cryptosystem cryptosystem;
+    private final ChunkContainer.Header header;
+    private final BaseNChunkCodec codec;
+    private final long indexOffset;
+    private final int frameCount;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate( ChunkContainer.FRAME_LENGTH_BYTES );
+    private final ByteBuffer decodedBuffer;
+    private final ByteBuffer outputBuffer;
+    private ByteBuffer frameBuffer = ByteBuffer.allocate( 0 );
+
+
+    public FramedContainerReader(
+        @Nonnull final SeekableByteChannel channel, @Nonnull final Cryptosystem cryptosystem
+    ) throws IOException {
+        this.channel = channel;
+        this.cryptosystem = cryptosystem;
+
+        channel.position( 0 );
+        this.header = ChunkContainer.Header.read( Channels.newInputStream( channel ) );
+        this.codec = header.baseN() != 0 ? BaseNChunkCodec.forBaseN( header.baseN() ) : null;
+
+        final long size = channel.size();
+        if ( size < ChunkContainer.FOOTER_LENGTH ) {
+            throw new EOFException( String.format(
+                "Truncated container.  Container Size: %d", size
+            ) );
+        }
+        final ByteBuffer footer = ByteBuffer.allocate( ChunkContainer.FOOTER_LENGTH );
+        readFully( footer, size - ChunkContainer.FOOTER_LENGTH );
+        this.indexOffset = footer.getLong();
+        this.frameCount = footer.getInt();
+        final int magic = footer.getInt();
+        if ( magic != ChunkContainer.INDEX_MAGIC || frameCount < 0
+            || indexOffset + (long) frameCount * Long.BYTES + ChunkContainer.FOOTER_LENGTH != size ) {
+            throw new IOException( String.format(
+                "Invalid container footer.  Index Offset: %d, Frame Count: %d, Container Size: %d",
+                indexOffset, frameCount, size
+            ) );
+        }
+
+        cryptosystem.setChunkSizeEncrypt( header.chunkSizeEncrypt() );
+        cryptosystem.setChunkSizeDecrypt( header.chunkSizeDecrypt() );
+        if ( cryptosystem instanceof SessionCryptosystem sessionCryptosystem ) {
+            if ( frameCount == 0 ) {
+                throw new IOException( "Truncated container, the last frame is missing.  Frame Count: 0" );
+            }
+            sessionCryptosystem.beginDecryptSession( header.sessionHeader() );
+        }
+
+        this.decodedBuffer = ByteBuffer.allocate( header.chunkSizeDecrypt() );
+        this.outputBuffer = ByteBuffer.allocate( Math.max( header.chunkSizeEncrypt(), header.chunkSizeDecrypt() ) );
+    }
+
+    @Nonnull
+    public String getCryptosystemName() {
+        return header.cryptosystemName();
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the number of frames the plain text byte range spans.
+     */
+    public int getFrameCount( long offset, long length ) {
+        if ( length <= 0 ) {
+            return 0;
+        }
+
+        final int chunkSize = header.chunkSizeEncrypt();
+
+        return Math.toIntExact( (offset + length - 1) / chunkSize - offset / chunkSize + 1 );
+    }
+
+    /**
+     * Decrypts length bytes of the plain text, starting at offset, and writes
+     * them to the output stream.  Fewer bytes get written when the range runs
+     * past the end of the plain text.
+     *
+     * @return the number of bytes written.
+     */
+    public long decryptRange( long offset, long length, @Nonnull final OutputStream outputStream ) throws IOException {
+        if ( offset < 0 || length < 0 ) {
+            throw new IllegalArgumentException( String.format(
+                "Invalid range.  Offset: %d, Length: %d", offset, length
+            ) );
+        }
+
+        final int chunkSize = header.chunkSizeEncrypt();
+        int frameIndex = (int) Math.min( offset / chunkSize, frameCount );
+        if ( length == 0 || frameIndex == frameCount ) {
+            return 0;
+        }
+
+        long frameOffset = readFrameOffset( frameIndex );
+        long plainTextOffset = (long) frameIndex * chunkSize;
+        long numWritten = 0;
+        while ( numWritten < length && frameIndex < frameCount ) {
+            frameOffset += readFrame( frameOffset );
+            final ByteBuffer plainText = decryptFrame( frameIndex );
+
+            final int skip = (int) Math.max( 0, offset - plainTextOffset );
+            if ( skip < plainText.remaining() ) {
+                final int count = (int) Math.min( plainText.remaining() - skip, length - numWritten );
+                outputStream.write(
+                    plainText.array(), plainText.arrayOffset() + plainText.position() + skip, count
+                );
+                numWritten += count;
+            }
+
+            plainTextOffset += plainText.remaining();
+            frameIndex++;
+        }
+
+        return numWritten;
+    }
+
+    /**
+     * @return the decrypted bytes of the range, which are fewer than length
+     * when the range runs past the end of the plain text.
+     */
+    @Nonnull
+    public byte[] decryptRange( long offset, int length ) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( length );
+        decryptRange( offset, length, byteArrayOutputStream );
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private long readFrameOffset( int frameIndex ) throws IOException {
+        final ByteBuffer entry = ByteBuffer.allocate( Long.BYTES );
+        readFully( entry, indexOffset + (long) frameIndex * Long.BYTES );
+
+        return entry.getLong();
+    }
+
+    /**
+     * Reads the frame at the given container offset into the frame buffer.
+     *
+     * @return the length of the frame, length prefix included.
+     */
+    private int readFrame( long frameOffset ) throws IOException {
+        readFully( lengthBuffer.clear(), frameOffset );
+        final int frameLength = lengthBuffer.getInt();
+        if ( frameLength <= 0 || frameOffset + ChunkContainer.FRAME_LENGTH_BYTES + frameLength > indexOffset ) {
+            throw new IOException( String.format(
+                "Invalid frame.  Frame Offset: %d, Frame Length: %d", frameOffset, frameLength
+            ) );
+        }
+
+        if ( frameBuffer.capacity() < frameLength ) {
+            frameBuffer = ByteBuffer.allocate( frameLength );
+        }
+        readFully( frameBuffer.clear().limit( frameLength ), frameOffset + ChunkContainer.FRAME_LENGTH_BYTES );
+
+        return ChunkContainer.FRAME_LENGTH_BYTES + frameLength;
+    }
+
+    /**
+     * Decrypts the frame in the frame buffer.  A session or positional
+     * cryptosystem gets the frame's index, as each frame holds one chunk of
+     * the stream.
+     */
+    @Nonnull
+    private ByteBuffer decryptFrame( int frameIndex ) throws IOException {
+        ByteBuffer cipherText = frameBuffer;
+        if ( codec != null ) {
+            codec.decode( frameBuffer, decodedBuffer.clear() );
+            cipherText = decodedBuffer.flip();
+        }
+        if ( cryptosystem instanceof SessionCryptosystem sessionCryptosystem ) {
+            final byte[] bytes = new byte[cipherText.remaining()];
+            cipherText.get( bytes );
+            outputBuffer.clear().put( sessionCryptosystem.decrypt( bytes, frameIndex, frameIndex == frameCount - 1 ) );
+        }
+        else if ( cryptosystem instanceof PositionalCryptosystem positionalCryptosystem ) {
+            positionalCryptosystem.decrypt( cipherText, outputBuffer.clear(), frameIndex );
+        }
+        else {
+            cryptosystem.decrypt( cipherText, outputBuffer.clear() );
+        }
+
+        return outputBuffer.flip();
+    }
+
+    /**
+     * Reads until the buffer is full, starting at the given channel position,
+     * and leaves the buffer ready to be read from.
+     */
+    private void readFully( @Nonnull final ByteBuffer buffer, long position ) throws IOException {
+        channel.position( position );
+        while ( buffer.hasRemaining() ) {
+            if ( channel.read( buffer ) < 0 ) {
+                throw new EOFException( String.format(
+                    "Truncated container.  Position: %d, Missing Length: %d", position, buffer.remaining()
+                ) );
+            }
+        }
+        buffer.flip();
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.tiffanytimbric.crypto.cli;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * This class implements a fixed size, log-linear histogram of nanosecond
+ * latencies, in the style of HdrHistogram.  Values below 32 get a bucket each.
+ * Above that, each power of two gets split into 16 buckets, so any recorded
+ * value is reported to within about 6%.  Recording is lock free and allocates
+ * nothing, so workers may record on any number of threads at once.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKET_COUNT );
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final LongAdder total = new LongAdder();
+
+
+    void record( long nanos ) {
+        final long value = Math.max( 0, nanos );
+        counts.incrementAndGet( indexOf( value ) );
+        total.add( value );
+        max.accumulateAndGet( value, Math::max );
+        count.incrementAndGet();
+    }
+
+    /**
+     * Records the same latency count times over.
+     */
+    void record( long nanos, int count ) {
+        if ( count < 1 ) {
+            return;
+        }
+
+        final long value = Math.max( 0, nanos );
+        counts.addAndGet( indexOf( value ), count );
+        total.add( value * count );
+        max.accumulateAndGet( value, Math::max );
+        this.count.addAndGet( count );
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    long getTotal() {
+        return total.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    long getMean() {
+        final long count = getCount();
+
+        return count == 0 ? 0 : getTotal() / count;
+    }
+
+    /**
+     * @return the highest value equivalent to the one at the given percentile,
+     * or 0 when nothing has been recorded.
+     */
+    long getValueAtPercentile( double percentile ) {
+        final long count = getCount();
+        if ( count == 0 ) {
+            return 0;
+        }
+
+        final long target = Math.max( 1, (long) Math.ceil( count * Math.min( 100, percentile ) / 100 ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+            seen += counts.get( i );
+            if ( seen >= target ) {
+                return Math.min( highestEquivalentValue( i ), getMax() );
+            }
+        }
+
+        return getMax();
+    }
+
+    private static int indexOf( long value ) {
+        if ( value < LINEAR_LIMIT ) {
+            return (int) value;
+        }
+
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    private static long highestEquivalentValue( int index ) {
+        if ( index < LINEAR_LIMIT ) {
+            return index;
+        }
+
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+}
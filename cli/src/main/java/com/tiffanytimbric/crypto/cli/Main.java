@@ -1,10 +1,12 @@
 package com.tiffanytimbric.crypto.cli;
 
+import com.tiffanytimbric.crypto.api.ChunkBuffer;
+import com.tiffanytimbric.crypto.api.ChunkBufferPool;
 import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.api.PositionalCryptosystem;
+import com.tiffanytimbric.crypto.api.SessionCryptosystem;
 import io.reactivex.rxjava3.annotations.NonNull;
-import io.reactivex.rxjava3.core.Scheduler;
-import io.reactivex.rxjava3.core.Single;
-import io.reactivex.rxjava3.internal.schedulers.ExecutorScheduler;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 
@@ -12,25 +14,25 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.StringWriter;
-import java.nio.CharBuffer;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -40,10 +42,14 @@ import javax.annotation.Nullable;
  * This class implements command-line access to encryption/decryption.  The
  * cryptosystem it should use must be specified as a command line parameter.
  * <p>
- * <b>Presently Supported Cryptosystems:</b> NOOP, XOR, NTRU
+ * <b>Presently Supported Cryptosystems:</b> NOOP, XOR, NTRU, NTRU_HYBRID
  * <p>
- * Input gets read from stdin.  Output gets written to stdout.  Encryption
+ * Input gets read from stdin, or the input file.  Output gets written to
+ * stdout, or the output file.  Encryption
  * output may be BaseN encoded.  Decryption input may be BaseN decoded.
+ * Encryption output may be written as, and decryption input read from, a
+ * {@link ChunkContainer}.  A range of a container redirected to stdin may be
+ * decrypted on its own.
  */
 public final class Main {
 
@@ -52,11 +58,11 @@ public final class Main {
     private static final String CONFIG_FILENAME = "config.properties";
     private static final String PN_CRYPTOSYSTEM_NAMES = "crypto.cryptosystem_names";
     private static final int DEFAULT_THREAD_COUNT = 1;
+    private static final int POOLED_CHUNK_BUFFERS_PER_THREAD = 4;
+    private static final int TARGET_TASK_LENGTH = 65536;
 
     private static volatile BufferedInputStream bufferedInputStream = null;
-    private static volatile InputStreamReader inputStreamReader = null;
     private static volatile BufferedOutputStream bufferedOutputStream = null;
-    private static volatile OutputStreamWriter outputStreamWriter = null;
 
 
     /**
@@ -68,6 +74,11 @@ public final class Main {
      * for specified cryptosystem.  The list of chunks equals the thread count which was
      * specified or configured.
      * <p>
+     * When the pipeline option is given, the batch steps below get replaced by a
+     * {@link ChunkPipeline} which overlaps reading, processing and writing.  When
+     * the RxJava option is given, they get replaced by the backpressured
+     * {@link RxChunkPipeline}.
+     * <p>
      * <b>Program Steps</b>
      * <ol>
      *     <li>Setup: Read config, parse command-line arguments.</li>
@@ -92,71 +103,74 @@ public final class Main {
             // 1. Setup: Read config, parse command-line arguments.
             //
             final Config config = loadConfig( getCliParser().parse( args ) );
+            if ( config.verbose() ) {
+                printConfig( config );
+            }
+            final CryptoMetrics metrics = new CryptoMetrics( config );
+            if ( !isWarmUpDeferred( config ) ) {
+                CryptosystemWarmUp.start( config, metrics );
+            }
+            if ( config.jmx() ) {
+                metrics.registerMBean();
+                metrics.start();
+            }
+
+            if ( config.range() != null ) {
+                decryptRange( config, metrics );
+                reportStats( config, metrics );
+
+                exit( ExitCode.SUCCESS );
+            }
+            if ( MappedFileProcessor.isApplicable( config ) ) {
+                processMappedFiles( config, metrics );
+                reportStats( config, metrics );
+
+                exit( ExitCode.SUCCESS );
+            }
 
             //
             // 2. Execute program logic.
             //
             try (
-                final BufferedInputStream bufferedInputStream = getBufferedInputStream( System.in );
-                final InputStreamReader inputStreamReader = getInputStreamReader( bufferedInputStream )
+                final ExecutionEngine executionEngine = ExecutionEngine.create(
+                    config.executionBackend(), config.threadCount()
+                );
+                final BufferedInputStream bufferedInputStream = getBufferedInputStream(
+                    config.inputFile() != null ? Files.newInputStream( config.inputFile() ) : System.in
+                );
+                final BufferedOutputStream bufferedOutputStream = getBufferedOutputStream(
+                    config.outputFile() != null ? Files.newOutputStream( config.outputFile() ) : System.out
+                )
             ) {
-                try (
-                    final BufferedOutputStream bufferedOutputStream = getBufferedOutputStream( System.out );
-                    final OutputStreamWriter outputStreamWriter = getOutputStreamWriter( bufferedOutputStream )
-                ) {
-                    while ( true ) {
-                        //
-                        // 2.1. Input one threadCount sized list of chunks.
-                        //
-                        final List<byte[]> inputList = new ArrayList<>();
-                        if ( config.baseNDecodeInput() ) {
-                            inputList.addAll(
-                                baseNDecode(
-                                    inputTextChunks(
-                                        config.chunkSize(), config.threadCount(), config.baseNDecodeInput(),
-                                        config.baseN(), inputStreamReader
-                                    ),
-                                    config.baseN()
-                                )
-                            );
-                        }
-                        else {
-                            inputList.addAll(
-                                inputBinaryChunks( config.chunkSize(), config.threadCount(), bufferedInputStream )
-                            );
-                        }
-                        if ( isEmpty( inputList ) ) {
-                            break;
-                        }
-                        validateInputList( inputList );
-
-                        //
-                        // 2.2. Process (encrypt/decrypt) the chunks.
-                        //
-                        final List<byte[]> outputList = processChunks( inputList, config );
-                        validateOutputList( outputList );
-
-                        //
-                        // 2.3. Output the processed list of chunks.
-                        //
-                        if ( !isEmpty( outputList ) ) {
-                            if ( config.baseNEncodeOutput() ) {
-                                writeTextOutputList(
-                                    baseNEncode( outputList, config.baseN() ),
-                                    outputStreamWriter
-                                );
-                            }
-                            else {
-                                writeOutputList( outputList, bufferedOutputStream );
-                            }
-                        }
+                final ChunkWriter chunkWriter = new ChunkWriter( config, bufferedOutputStream, metrics );
+                final Config streamConfig = config.framed()
+                    ? processContainerHeader( config, bufferedInputStream, chunkWriter ) : config;
+                if ( isWarmUpDeferred( config ) ) {
+                    CryptosystemWarmUp.start( streamConfig, metrics );
+                }
+                final ChunkReader chunkReader = new ChunkReader( streamConfig, bufferedInputStream, metrics );
+                if ( !streamConfig.framed() ) {
+                    processSessionHeader( streamConfig, chunkReader, chunkWriter );
+                }
+                final ChunkBufferPool chunkBufferPool = newChunkBufferPool( streamConfig );
 
-                        outputStreamWriter.flush();
-                        bufferedOutputStream.flush();
-                        inputList.clear();
-                    }
+                if ( streamConfig.usePipeline() ) {
+                    new ChunkPipeline( streamConfig, executionEngine, chunkBufferPool, metrics )
+                        .run( chunkReader, chunkWriter );
+                }
+                else if ( streamConfig.useRxJava() ) {
+                    new RxChunkPipeline( streamConfig, executionEngine, chunkBufferPool, metrics )
+                        .run( chunkReader, chunkWriter );
+                }
+                else {
+                    processBatches(
+                        streamConfig, executionEngine, chunkBufferPool, metrics, chunkReader, chunkWriter
+                    );
                 }
+                finishSession( streamConfig, chunkBufferPool, metrics, chunkReader, chunkWriter );
+                chunkWriter.finish();
             }
+            reportStats( config, metrics );
         }
         catch ( final Throwable t ) {
             exit( t );
@@ -165,44 +179,313 @@ public final class Main {
         exit( ExitCode.SUCCESS );
     }
 
-    @Nonnull
-    private static List<String> baseNEncode( @Nonnull final List<byte[]> bytes, int baseN ) {
-        switch ( BaseN.forValue( baseN ) ) {
-            case Sixteen -> {
-                return Base16Util.encode( bytes );
+    /**
+     * Processes the input file into the output file through the
+     * {@link MappedFileProcessor}.
+     */
+    private static void processMappedFiles(
+        @Nonnull final Config config, @Nonnull final CryptoMetrics metrics
+    ) throws IOException {
+        try (
+            final ExecutionEngine executionEngine = ExecutionEngine.create(
+                config.executionBackend(), config.threadCount()
+            );
+            final FileChannel inputChannel = FileChannel.open( config.inputFile(), StandardOpenOption.READ );
+            final FileChannel outputChannel = FileChannel.open(
+                config.outputFile(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            new MappedFileProcessor( config, executionEngine, newChunkBufferPool( config ), metrics )
+                .run( inputChannel, outputChannel );
+        }
+    }
+
+    /**
+     * Decrypts the configured range of the input file, or of the container
+     * redirected to stdin, reading only the frames which cover it.
+     */
+    private static void decryptRange(
+        @Nonnull final Config config, @Nonnull final CryptoMetrics metrics
+    ) throws IOException {
+        try (
+            final FileChannel fileChannel = config.inputFile() != null
+                ? FileChannel.open( config.inputFile(), StandardOpenOption.READ )
+                : new FileInputStream( FileDescriptor.in ).getChannel();
+            final BufferedOutputStream bufferedOutputStream = getBufferedOutputStream(
+                config.outputFile() != null ? Files.newOutputStream( config.outputFile() ) : System.out
+            )
+        ) {
+            final FramedContainerReader containerReader;
+            try {
+                containerReader = new FramedContainerReader( fileChannel, config.cryptosystem() );
             }
-            case ThirtyTwo -> {
-                return Base32Util.encode( bytes );
+            catch ( IOException e ) {
+                throw new IOException( String.format(
+                    "Range decryption needs a seekable container file.  Cause: %s", e.getMessage()
+                ), e );
             }
-            case SixtyFour -> {
-                return Base64Util.encode( bytes );
+            if ( !config.cryptosystemName().equals( containerReader.getCryptosystemName() ) ) {
+                throw new IOException( String.format(
+                    "Container cryptosystem mismatch.  Container Cryptosystem: \"%s\", Specified Cryptosystem: \"%s\"",
+                    containerReader.getCryptosystemName(), config.cryptosystemName()
+                ) );
             }
-            default -> {
-                exit( ExitCode.INVALID_ARGUMENT );
 
-                return new ArrayList<>();
-            }
+            final long startNanos = System.nanoTime();
+            final long numWritten = containerReader.decryptRange(
+                config.range().offset(), config.range().length(), bufferedOutputStream
+            );
+            metrics.recordChunks(
+                System.nanoTime() - startNanos,
+                containerReader.getFrameCount( config.range().offset(), numWritten )
+            );
+            metrics.recordWrite( numWritten, 0 );
         }
     }
 
+    /**
+     * Stops the run's clock, then prints the metrics summary on stderr when
+     * asked to.
+     */
+    private static void reportStats( @Nonnull final Config config, @Nonnull final CryptoMetrics metrics ) {
+        metrics.finish();
+        if ( config.stats() ) {
+            metrics.printSummary( System.err );
+        }
+    }
+
+    /**
+     * Writes, or reads back, the header of a framed container.  The session
+     * header, if any, travels in the container header.  When decrypting, the
+     * cryptosystem's chunk sizes and the BaseN decoding of the frames get
+     * taken from the container header.
+     *
+     * @return the config to process the frames with.
+     */
     @Nonnull
-    private static List<byte[]> baseNDecode( @Nonnull final List<String> texts, int baseN ) {
-        switch ( BaseN.forValue( baseN ) ) {
-            case Sixteen -> {
-                return Base16Util.decode( texts );
+    private static Config processContainerHeader(
+        @Nonnull final Config config,
+        @Nonnull final InputStream inputStream,
+        @Nonnull final ChunkWriter chunkWriter
+    ) throws IOException {
+        final Cryptosystem cryptosystem = config.cryptosystem();
+        if ( Action.ENCRYPT.equals( config.action() ) ) {
+            final byte[] sessionHeader = cryptosystem instanceof SessionCryptosystem sessionCryptosystem
+                ? sessionCryptosystem.beginEncryptSession() : new byte[0];
+            chunkWriter.writeHeader( new ChunkContainer.Header(
+                config.cryptosystemName(), cryptosystem.getChunkSizeEncrypt(), cryptosystem.getChunkSizeDecrypt(),
+                config.baseNEncodeOutput() ? config.baseN() : 0, sessionHeader
+            ) );
+
+            return config;
+        }
+
+        final ChunkContainer.Header header = ChunkContainer.Header.read( inputStream );
+        if ( !config.cryptosystemName().equals( header.cryptosystemName() ) ) {
+            throw new IOException( String.format(
+                "Container cryptosystem mismatch.  Container Cryptosystem: \"%s\", Specified Cryptosystem: \"%s\"",
+                header.cryptosystemName(), config.cryptosystemName()
+            ) );
+        }
+
+        cryptosystem.setChunkSizeEncrypt( header.chunkSizeEncrypt() );
+        cryptosystem.setChunkSizeDecrypt( header.chunkSizeDecrypt() );
+        if ( cryptosystem instanceof SessionCryptosystem sessionCryptosystem ) {
+            sessionCryptosystem.beginDecryptSession( header.sessionHeader() );
+        }
+
+        return new Config(
+            config.action(), config.cryptosystemName(), cryptosystem, header.chunkSizeDecrypt(),
+            config.threadCount(), config.executionBackend(),
+            header.baseN() != 0, false, header.baseN() != 0 ? header.baseN() : config.baseN(),
+            true, config.range(), config.inputFile(), config.outputFile(), config.useRxJava(), config.usePipeline(),
+            config.verbose(), config.stats(), config.jmx(), config.offHeap(), config.jitWarmUp()
+        );
+    }
+
+    /**
+     * Ends the stream of a cryptosystem which encrypts under per-stream
+     * session state, which always ends with a last chunk.  An empty input
+     * gets encrypted into an empty last chunk, and decrypting an input with
+     * no chunk at all fails, as it has been cut short.
+     */
+    private static void finishSession(
+        @Nonnull final Config config,
+        @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final CryptoMetrics metrics,
+        @Nonnull final ChunkReader chunkReader,
+        @Nonnull final ChunkWriter chunkWriter
+    ) throws IOException {
+        if ( !(config.cryptosystem() instanceof SessionCryptosystem) || chunkReader.getChunkCount() > 0 ) {
+            return;
+        }
+        if ( Action.DECRYPT.equals( config.action() ) ) {
+            throw new IOException( "Truncated stream, the last chunk is missing.  Chunk Count: 0" );
+        }
+
+        final ChunkBuffer input = chunkBufferPool.acquire().setStreamPosition( 0, true );
+        input.buffer().flip();
+        final ChunkBuffer output = processChunk( input, config, chunkBufferPool, metrics );
+        chunkWriter.write( output.buffer() );
+        output.release();
+        chunkWriter.flush();
+    }
+
+    /**
+     * Writes, or reads back, the header of a cryptosystem which encrypts under
+     * per-stream session state.  The header precedes the first chunk and gets
+     * BaseN encoded/decoded like a chunk.
+     */
+    private static void processSessionHeader(
+        @Nonnull final Config config,
+        @Nonnull final ChunkReader chunkReader,
+        @Nonnull final ChunkWriter chunkWriter
+    ) throws IOException {
+        if ( !(config.cryptosystem() instanceof SessionCryptosystem sessionCryptosystem) ) {
+            return;
+        }
+
+        if ( Action.ENCRYPT.equals( config.action() ) ) {
+            final ByteBuffer header = ByteBuffer.wrap( sessionCryptosystem.beginEncryptSession() );
+            final BaseNChunkCodec codec = outputCodec( config );
+            if ( codec == null ) {
+                chunkWriter.write( header );
             }
-            case ThirtyTwo -> {
-                return Base32Util.decode( texts );
+            else {
+                final ByteBuffer text = ByteBuffer.allocate( codec.maxEncodedLength( header.remaining() ) );
+                codec.encode( header, text );
+                chunkWriter.write( text.flip() );
             }
-            case SixtyFour -> {
-                return Base64Util.decode( texts );
+
+            return;
+        }
+
+        final int headerLength = sessionCryptosystem.getHeaderLength();
+        final BaseNChunkCodec codec = inputCodec( config );
+        ByteBuffer header;
+        if ( codec == null ) {
+            header = chunkReader.read( ByteBuffer.allocate( headerLength ), headerLength );
+        }
+        else {
+            final ByteBuffer text = chunkReader.read(
+                ByteBuffer.allocate( codec.maxEncodedLength( headerLength ) ), headerLength
+            );
+            header = ByteBuffer.allocate( headerLength );
+            codec.decode( text, header );
+            header.flip();
+        }
+        if ( !header.hasRemaining() ) {
+            throw new IOException( "Truncated stream, the session header is missing." );
+        }
+
+        sessionCryptosystem.beginDecryptSession( toByteArray( header ) );
+    }
+
+    static void processBatches(
+        @Nonnull final Config config,
+        @Nonnull final ExecutionEngine executionEngine,
+        @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final CryptoMetrics metrics,
+        @Nonnull final ChunkReader chunkReader,
+        @Nonnull final ChunkWriter chunkWriter
+    ) throws IOException, ValidationException {
+        final List<ChunkBuffer> inputList = new ArrayList<>( config.threadCount() );
+        final ChunkBuffer[] outputs = new ChunkBuffer[config.threadCount()];
+        final List<Future<?>> futures = new ArrayList<>( config.threadCount() );
+        while ( true ) {
+            //
+            // 2.1. Input one threadCount sized list of chunks.
+            //
+            inputChunks( config.threadCount(), chunkBufferPool, chunkReader, inputList );
+            if ( isEmpty( inputList ) ) {
+                break;
             }
-            default -> {
-                exit( ExitCode.INVALID_ARGUMENT );
+            validateInputList( inputList );
 
-                return new ArrayList<>();
+            //
+            // 2.2. Process (encrypt/decrypt) the chunks.
+            //
+            inputList.forEach( input -> metrics.chunkQueued() );
+            processChunksConcurrently( inputList, outputs, futures, config, executionEngine, chunkBufferPool, metrics );
+            final List<ChunkBuffer> outputList = Arrays.asList( outputs ).subList( 0, inputList.size() );
+            validateOutputList( outputList, config );
+
+            //
+            // 2.3. Output the processed list of chunks.
+            //
+            for ( final ChunkBuffer output : outputList ) {
+                chunkWriter.write( output.buffer() );
+                output.release();
+                metrics.chunkDequeued();
             }
+
+            chunkWriter.flush();
+            inputList.clear();
+            Arrays.fill( outputs, null );
+        }
+    }
+
+    /**
+     * Creates the pool of buffers chunks get read into and processed into.
+     * Each buffer can hold either an input or an output chunk, BaseN encoded
+     * or not, and there are enough of them to cover every chunk in flight.
+     * The buffers are off-heap when asked for, except for BaseN coding, whose
+     * codec works on backing arrays.
+     */
+    @Nonnull
+    static ChunkBufferPool newChunkBufferPool( @Nonnull final Config config ) {
+        final int maxPooledBuffers = config.threadCount() * POOLED_CHUNK_BUFFERS_PER_THREAD + 2;
+        if ( !config.baseNDecodeInput() && !config.baseNEncodeOutput() ) {
+            return ChunkBufferPool.forCryptosystem(
+                config.cryptosystem(), getChunksPerTask( config ), maxPooledBuffers, config.offHeap()
+            );
+        }
+
+        final int bufferCapacity = BaseNChunkCodec.forBaseN( config.baseN() )
+            .maxEncodedLength( getMaxChunkSize( config ) );
+
+        return new ChunkBufferPool(
+            Math.multiplyExact( bufferCapacity, getChunksPerTask( config ) ), maxPooledBuffers, false
+        );
+    }
+
+    /**
+     * @return how many cryptosystem chunks each worker task processes, as one
+     * batch.  Small chunks get batched up to about {@link #TARGET_TASK_LENGTH}
+     * bytes per task, so the per-call setup and task overhead gets amortized.
+     * BaseN input and framed output stay at one chunk per task, since both
+     * delimit chunks one at a time.
+     */
+    static int getChunksPerTask( @Nonnull final Config config ) {
+        if ( config.baseNDecodeInput() || config.framed() ) {
+            return 1;
         }
+
+        return Math.max( 1, TARGET_TASK_LENGTH / getMaxChunkSize( config ) );
+    }
+
+    private static int getMaxChunkSize( @Nonnull final Config config ) {
+        final Cryptosystem cryptosystem = config.cryptosystem();
+
+        return Math.max(
+            config.chunkSize(),
+            Math.max( cryptosystem.getChunkSizeEncrypt(), cryptosystem.getChunkSizeDecrypt() )
+        );
+    }
+
+    /**
+     * Framed decryption takes the chunk sizes, and with them the XOR key,
+     * from the container header, so its warm-up has to wait for the header.
+     */
+    private static boolean isWarmUpDeferred( @Nonnull final Config config ) {
+        return config.framed() && Action.DECRYPT.equals( config.action() );
+    }
+
+    private static void printConfig( @Nonnull final Config config ) {
+        System.err.printf( "Cryptosystem: %s%n", config.cryptosystem() );
+        System.err.printf( "Workers: %s x %d%n", config.executionBackend(), config.threadCount() );
+        System.err.printf( "Chunk Buffers: %s%n", config.offHeap() ? "off-heap" : "heap" );
     }
 
     @Nonnull
@@ -227,9 +510,9 @@ public final class Main {
         boolean isBaseNEncode = isBaseNEncode( options );
         boolean isBaseNDecode = isBaseNDecode( options );
         int baseN = getBaseN( options );
-        final Cryptosystem cryptosystem = loadCryptosystems(
-            isBaseNEncode, isBaseNDecode, baseN
-        ).get( cryptosystemName );
+        final Cryptosystem cryptosystem = loadCryptosystem(
+            cryptosystemName, isBaseNEncode, isBaseNDecode, baseN
+        );
         if ( cryptosystem == null ) {
             throw new ValidationException( String.format(
                 "Specified cryptosystem not found.  Specified Cryptosystem: \"%s\"", cryptosystemName
@@ -237,7 +520,8 @@ public final class Main {
         }
 
         if ( options.has( "k" ) || options.has( "key" ) ) {
-            if ( cryptosystemName.equals( CryptosystemName.NTRU.name() ) ) {
+            if ( cryptosystemName.equals( CryptosystemName.NTRU.name() )
+                || cryptosystemName.equals( CryptosystemName.NTRU_HYBRID.name() ) ) {
                 exit( ExitCode.INVALID_ARGUMENT );
             }
 
@@ -251,18 +535,72 @@ public final class Main {
             threadCount = Integer.parseInt( options.valueOf( "t" ).toString() );
         }
 
+        ExecutionEngine.Backend executionBackend = ExecutionEngine.Backend.PLATFORM;
+        if ( options.has( "w" ) || options.has( "workers" ) ) {
+            try {
+                executionBackend = ExecutionEngine.Backend.forName( options.valueOf( "w" ).toString() );
+            }
+            catch ( IllegalArgumentException e ) {
+                throw new ValidationException( e.getMessage(), e );
+            }
+        }
+
+        ByteRange range = null;
+        if ( options.has( "r" ) || options.has( "range" ) ) {
+            if ( !Action.DECRYPT.equals( action ) ) {
+                throw new ValidationException( "The range option applies to decryption only." );
+            }
+
+            range = ByteRange.parse( String.valueOf( options.valueOf( options.has( "r" ) ? "r" : "range" ) ) );
+        }
+
+        final Path inputFile = getPath( options, "i", "in" );
+        final Path outputFile = getPath( options, "o", "out" );
+        if ( inputFile != null && outputFile != null
+            && inputFile.toAbsolutePath().normalize().equals( outputFile.toAbsolutePath().normalize() ) ) {
+            throw new ValidationException( String.format(
+                "The input and output files must differ.  File: \"%s\"", inputFile
+            ) );
+        }
+
         return new Config(
             action,
+            cryptosystemName,
             cryptosystem, Action.ENCRYPT.equals( action )
             ? cryptosystem.getChunkSizeEncrypt() : cryptosystem.getChunkSizeDecrypt(),
             threadCount,
+            executionBackend,
             isBaseNDecode,
             isBaseNEncode,
             baseN,
-            options.has( "x" ) || options.has( "rxjava" )
+            options.has( "f" ) || options.has( "framed" ) || range != null,
+            range,
+            inputFile,
+            outputFile,
+            options.has( "x" ) || options.has( "rxjava" ),
+            options.has( "l" ) || options.has( "pipeline" ),
+            options.has( "v" ) || options.has( "verbose" ),
+            options.has( "s" ) || options.has( "stats" ),
+            options.has( "j" ) || options.has( "jmx" ),
+            options.has( "m" ) || options.has( "offheap" ),
+            options.has( "a" ) || options.has( "warmup" )
         );
     }
 
+    @Nullable
+    private static Path getPath(
+        @Nonnull final OptionSet options, @Nonnull final String shortName, @Nonnull final String longName
+    ) {
+        if ( options.has( shortName ) ) {
+            return Path.of( String.valueOf( options.valueOf( shortName ) ) );
+        }
+        if ( options.has( longName ) ) {
+            return Path.of( String.valueOf( options.valueOf( longName ) ) );
+        }
+
+        return null;
+    }
+
     private static int getBaseN( @Nonnull final OptionSet options ) {
         if ( options.has( "b" ) ) {
             return Integer.parseInt( String.valueOf( options.valueOf( "b" ) ) );
@@ -271,36 +609,40 @@ public final class Main {
         return 64;
     }
 
-    @Nonnull
-    private static Map<String, Cryptosystem> loadCryptosystems(
-        boolean isBaseNEncode, boolean isBaseNDecode, int baseN
+    /**
+     * Instantiates the named cryptosystem only, leaving the classes of the
+     * others unloaded.
+     *
+     * @return the cryptosystem, or null when the name is not one of the
+     * configured cryptosystem names.
+     */
+    @Nullable
+    private static Cryptosystem loadCryptosystem(
+        @Nonnull final String cryptosystemName, boolean isBaseNEncode, boolean isBaseNDecode, int baseN
     ) {
-        final Map<String, Cryptosystem> cryptosystems = new HashMap<>();
         try {
             final Properties properties = new Properties();
             properties.load( Main.class.getClassLoader().getResourceAsStream( CONFIG_FILENAME ) );
             final String crytosystemNames = properties.getProperty( PN_CRYPTOSYSTEM_NAMES );
-            Arrays.stream( crytosystemNames.split( "\\," ) ).forEach( cryptosystemName -> {
-                try {
-                    final String cryptosystemClassname = properties.getProperty( String.format(
-                        PF_CRYPTOSYSTEMS_CLASSNAME, cryptosystemName
-                    ) );
-
-                    final Cryptosystem cryptosystem = (Cryptosystem) Main.class.getClassLoader()
-                        .loadClass( cryptosystemClassname ).getConstructor().newInstance();
-                    cryptosystem.init( isBaseNEncode, isBaseNDecode, baseN );
-                    cryptosystems.put( cryptosystemName, cryptosystem );
-                }
-                catch ( Throwable t ) {
-                    exit( t );
-                }
-            } );
+            if ( !Arrays.asList( crytosystemNames.split( "\\," ) ).contains( cryptosystemName ) ) {
+                return null;
+            }
+
+            final String cryptosystemClassname = properties.getProperty( String.format(
+                PF_CRYPTOSYSTEMS_CLASSNAME, cryptosystemName
+            ) );
+
+            final Cryptosystem cryptosystem = (Cryptosystem) Main.class.getClassLoader()
+                .loadClass( cryptosystemClassname ).getConstructor().newInstance();
+            cryptosystem.init( isBaseNEncode, isBaseNDecode, baseN );
+
+            return cryptosystem;
         }
         catch ( Throwable t ) {
             exit( t );
         }
 
-        return cryptosystems;
+        return null;
     }
 
     @Nullable
@@ -323,7 +665,9 @@ public final class Main {
         return null;
     }
 
-    private static void validateOutputList( @Nullable final List<byte[]> outputList ) throws ValidationException {
+    private static void validateOutputList(
+        @Nullable final List<ChunkBuffer> outputList, @Nonnull final Config config
+    ) throws ValidationException {
         if ( isEmpty( outputList ) ) {
             return;
         }
@@ -331,45 +675,48 @@ public final class Main {
         if ( outputList.stream().anyMatch( Objects::isNull ) ) {
             throw new ValidationException( "Invalid null output value found.  Each output value must be non-null." );
         }
-        if ( outputList.stream().map( Arrays::asList ).anyMatch( List::isEmpty ) ) {
-            throw new ValidationException( "Invalid empty output value found.  Each output value must be non-empty." );
+        for ( final ChunkBuffer output : outputList ) {
+            validateOutput( output, config );
         }
     }
 
-    private static void writeTextOutputList(
-        @Nonnull final List<String> outputList,
-        @Nonnull final OutputStreamWriter outputStreamWriter
-    ) {
-        outputList.forEach( text -> writeTextOutput( text, outputStreamWriter ) );
+    /**
+     * Only the empty last chunk of an empty session stream may decrypt to no
+     * output.
+     */
+    static void validateOutput(
+        @Nonnull final ChunkBuffer output, @Nonnull final Config config
+    ) throws ValidationException {
+        if ( !output.buffer().hasRemaining() && !(config.cryptosystem() instanceof SessionCryptosystem) ) {
+            throw new ValidationException( "Invalid empty output value found.  Each output value must be non-empty." );
+        }
     }
 
-    private static void writeOutputList(
-        @Nonnull final List<byte[]> outputList,
-        @Nonnull final OutputStream outputStream
-    ) {
-        outputList.forEach( bytes -> writeOutput( bytes, outputStream ) );
-    }
+    /**
+     * Reads up to chunkCount chunks into pooled buffers, stopping early at the
+     * end of the input.
+     */
+    private static void inputChunks(
+        int chunkCount, @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final ChunkReader chunkReader, @Nonnull final List<ChunkBuffer> inputList
+    ) throws IOException {
+        for ( int count = 1; count <= chunkCount; count++ ) {
+            final ChunkBuffer input = chunkBufferPool.acquire();
+            if ( !chunkReader.read( input ).hasRemaining() ) {
+                input.release();
+                break;
+            }
 
-    private static void writeTextOutput(
-        @Nonnull final String text, @Nonnull final OutputStreamWriter outputStreamWriter
-    ) {
-        try {
-            outputStreamWriter.write( text );
-        }
-        catch ( IOException e ) {
-            exit( e );
+            inputList.add( input );
         }
     }
 
-    private static void writeOutput(
-        @Nonnull final byte[] bytes, @Nonnull final OutputStream outputStream
-    ) {
-        try {
-            outputStream.write( bytes );
-        }
-        catch ( IOException e ) {
-            exit( e );
-        }
+    @Nonnull
+    static byte[] toByteArray( @Nonnull final ByteBuffer buffer ) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get( bytes );
+
+        return bytes;
     }
 
     private static boolean isBaseNEncode( @Nonnull final OptionSet options ) {
@@ -443,130 +790,6 @@ public final class Main {
         return String.format( USAGE_FILENAME_FORMAT, cryptosystemName );
     }
 
-    @Nonnull
-    private static List<byte[]> inputBinaryChunks(
-        int chunkSize, int chunkCount, @Nonnull final InputStream inputStream
-    ) {
-        final List<byte[]> cypherTexts = new ArrayList<>();
-        IntStream.rangeClosed( 1, chunkCount ).forEachOrdered( count -> {
-            byte[] input = inputBinaryChunk( chunkSize, inputStream );
-            if ( input.length > 0 ) {
-                cypherTexts.add( input );
-            }
-        } );
-
-        return cypherTexts;
-    }
-
-
-    @Nonnull
-    private static byte[] inputBinaryChunk( int chunkSize, @Nonnull final InputStream inputStream ) {
-        try ( final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() ) {
-            int totalRead = 0;
-            do {
-                byte[] value = new byte[chunkSize - totalRead];
-                int numRead = inputStream.read( value );
-                if ( numRead < 0 ) {
-                    return outputStream.toByteArray();
-                }
-
-                totalRead += numRead;
-
-                outputStream.write( value, 0, numRead );
-                outputStream.flush();
-            }
-            while ( totalRead < chunkSize );
-
-            return outputStream.toByteArray();
-        }
-        catch ( IOException e ) {
-            throw new RuntimeException( e );
-        }
-    }
-
-
-    @Nonnull
-    private static List<String> inputTextChunks(
-        int chunkSize, int chunkCount, boolean baseNDecodeInput, int baseN,
-        @Nonnull final InputStreamReader inputStreamReader
-    ) {
-        final List<String> cypherTexts = new ArrayList<>();
-        IntStream.rangeClosed( 1, chunkCount ).forEachOrdered( count -> {
-            final String cypherText = inputTextChunk( baseNDecodeInput, baseN, inputStreamReader );
-            if ( cypherText.length() == 0 ) {
-                return;
-            }
-
-            cypherTexts.add( cypherText );
-        } );
-
-        return cypherTexts;
-    }
-
-    @Nonnull
-    private static String inputTextChunk(
-        boolean baseNDecodeInput, int baseN, @Nonnull final InputStreamReader inputStreamReader
-    ) {
-        final StringBuilder buf = new StringBuilder();
-        try {
-            char[] chars = new char[1];
-            int numCharsRead;
-            char lastChar = Character.MIN_VALUE;
-            do {
-                while ( (numCharsRead = inputStreamReader.read( chars )) == 0 ) {
-                    // Ignore.
-                }
-                if ( numCharsRead < 0 ) {
-                    break;
-                }
-
-                final CharBuffer charBuffer = CharBuffer.wrap( Arrays.copyOf( chars, numCharsRead ) );
-                buf.append(
-                    new String(
-                        StandardCharsets.UTF_8.encode( charBuffer ).array(), StandardCharsets.UTF_8
-                    ).replaceAll( "\\=", "" )
-                );
-
-                char currentChar = chars[numCharsRead - 1];
-                if ( baseNDecodeInput && reachedEncodingChunkDelimiter(baseN, currentChar, lastChar) ) {
-                    break;
-                }
-
-                lastChar = currentChar;
-            }
-            while ( true );
-        }
-        catch ( IOException e ) {
-            throw new RuntimeException( e );
-        }
-
-        return buf.toString();
-    }
-
-    private static boolean reachedEncodingChunkDelimiter( int baseN, char currentChar, char lastChar ) {
-        if ( 16 == baseN && currentChar == Base16Util.DELIMITER.charAt( 0 ) ) {
-            return true;
-        }
-        else if ( 32 == baseN && currentChar == Base32Util.DELIMITER.charAt( 0 ) ) {
-            return true;
-        }
-        else if (
-            64 == baseN && currentChar == Base64Util.DELIMITER.charAt( 0 ) && lastChar == currentChar
-        ) {
-            return true;
-        }
-
-        return false;
-    }
-
-    @Nonnull
-    private static synchronized InputStreamReader getInputStreamReader( @Nonnull InputStream inputStream ) {
-        if ( inputStreamReader == null ) {
-            inputStreamReader = new InputStreamReader( getBufferedInputStream( inputStream ) );
-        }
-
-        return inputStreamReader;
-    }
 
     private static synchronized BufferedInputStream getBufferedInputStream(
         @Nonnull final InputStream inputStream
@@ -578,17 +801,6 @@ public final class Main {
         return bufferedInputStream;
     }
 
-    @Nonnull
-    private static synchronized OutputStreamWriter getOutputStreamWriter(
-        @Nonnull final OutputStream outputStream
-    ) {
-        if ( outputStreamWriter == null ) {
-            outputStreamWriter = new OutputStreamWriter( getBufferedOutputStream( outputStream ) );
-        }
-
-        return outputStreamWriter;
-    }
-
     @Nonnull
     private static synchronized BufferedOutputStream getBufferedOutputStream(
         @Nonnull final OutputStream outputStream
@@ -601,9 +813,9 @@ public final class Main {
     }
 
     private static void validateInputList(
-        @Nullable final List<byte[]> inputList
+        @Nullable final List<ChunkBuffer> inputList
     ) throws ValidationException {
-        if ( !isEmpty( inputList ) && inputList.get( 0 ).length > 0 ) {
+        if ( !isEmpty( inputList ) && inputList.get( 0 ).buffer().hasRemaining() ) {
             return;
         }
 
@@ -612,123 +824,277 @@ public final class Main {
         );
     }
 
-    private static boolean isEmpty( @Nullable List<byte[]> inputList ) {
+    private static boolean isEmpty( @Nullable List<?> inputList ) {
         return inputList == null || inputList.isEmpty() || inputList.get( 0 ) == null;
     }
 
-    @Nonnull
-    private static List<byte[]> processChunks(
-        @Nonnull final List<byte[]> inputList, @Nonnull final Config config
+    /**
+     * Processes the input chunks on the workers, into the outputs array.  The
+     * outputs array and futures list get reused from batch to batch.
+     */
+    private static void processChunksConcurrently(
+        @NonNull final List<ChunkBuffer> inputList, @Nonnull final ChunkBuffer[] outputs,
+        @Nonnull final List<Future<?>> futures, @Nonnull final Config config,
+        @Nonnull final ExecutionEngine executionEngine, @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final CryptoMetrics metrics
     ) {
-        if ( config.useRxJava() ) {
-            return processChunksConcurrentlyUsingRxJava( inputList, config );
-        }
+        IntStream.range( 0, inputList.size() ).forEachOrdered( index -> futures.add(
+            executionEngine.submit( () -> {
+                    outputs[index] = processChunk( inputList.get( index ), config, chunkBufferPool, metrics );
 
-        return processChunksConcurrently( inputList, config );
+                    return null;
+                }
+            )
+        ) );
+        futures.forEach( Main::awaitCompletion );
+        futures.clear();
+    }
+
+    private static void awaitCompletion( @Nonnull final Future<?> future ) {
+        try {
+            future.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            exit( ExitCode.INTERRUPTED );
+        }
+        catch ( ExecutionException e ) {
+            exit( e.getCause() );
+        }
     }
 
+    /**
+     * Runs one chunk through the whole of its processing: BaseN decodes the
+     * input chunk when asked to, encrypts or decrypts it, then BaseN encodes
+     * the result when asked to.  Each step writes into a pooled buffer and
+     * releases its reference to the buffer it read from, so the threads doing
+     * I/O only ever read and write the chunks.
+     * <p>
+     * An input holding several cryptosystem chunks gets split at the chunk
+     * size and processed as one batch into a contiguous output.  Cryptosystems
+     * which support in place transforms skip the output buffer, transforming
+     * the input buffer they were handed instead.  The time each step takes
+     * gets recorded in the metrics.
+     *
+     * @return the output buffer, ready to be read from, which the caller
+     * holds the only reference to.
+     */
     @Nonnull
-    private static List<byte[]> processChunksConcurrently(
-        @NonNull final List<byte[]> inputList, @Nonnull final Config config
-    ) {
-        final Action action = config.action();
+    static ChunkBuffer processChunk(
+        @Nonnull final ChunkBuffer input, @Nonnull final Config config,
+        @Nonnull final ChunkBufferPool chunkBufferPool, @Nonnull final CryptoMetrics metrics
+    ) throws IOException {
+        final long startNanos = System.nanoTime();
+        final long firstChunkIndex = input.firstChunkIndex();
+        final boolean holdsLastChunk = input.holdsLastChunk();
+        ChunkBuffer chunkBuffer = input;
+        ByteBuffer chunk = input.buffer();
+        final BaseNChunkCodec inputCodec = inputCodec( config );
+        if ( inputCodec != null ) {
+            final ChunkBuffer decoded = chunkBufferPool.acquire();
+            inputCodec.decode( chunk, decoded.buffer() );
+            chunkBuffer.release();
+            chunkBuffer = decoded;
+            chunk = decoded.buffer().flip();
+        }
+        final long decodedNanos = System.nanoTime();
+
         final Cryptosystem cryptosystem = config.cryptosystem();
-        final byte[][] outputs = new byte[inputList.size()][];
+        final boolean isDecrypt = Action.DECRYPT.equals( config.action() );
+        final int[] outputLengths;
+        if ( cryptosystem instanceof SessionCryptosystem sessionCryptosystem ) {
+            final ChunkBuffer output = chunkBufferPool.acquire();
+            outputLengths = processSessionChunk(
+                chunk, output.buffer(), config, sessionCryptosystem, isDecrypt, firstChunkIndex, holdsLastChunk,
+                metrics
+            );
+            chunkBuffer.release();
+            chunkBuffer = output;
+            chunk = output.buffer().flip();
+        }
+        else if ( cryptosystem.supportsInPlace() && chunk.hasArray() ) {
+            outputLengths = processChunkInPlace( chunk, config, cryptosystem, isDecrypt, firstChunkIndex );
+        }
+        else {
+            final ChunkBuffer output = chunkBufferPool.acquire();
+            outputLengths = processChunkIntoOutput(
+                chunk, output.buffer(), config, cryptosystem, isDecrypt, firstChunkIndex
+            );
+            chunkBuffer.release();
+            chunkBuffer = output;
+            chunk = output.buffer().flip();
+        }
+        final long processedNanos = System.nanoTime();
+        if ( !(cryptosystem instanceof SessionCryptosystem) ) {
+            metrics.recordChunks( processedNanos - decodedNanos, outputLengths != null ? outputLengths.length : 1 );
+        }
 
-        try (
-            final AutoCloseableExecutorServiceHolder autoCloseableExecutorServiceHolder =
-                new AutoCloseableExecutorServiceHolder(
-                    Executors.newFixedThreadPool( config.threadCount() )
-                )
-        ) {
-            final ExecutorService executorService = autoCloseableExecutorServiceHolder.executorService();
-            IntStream.range( 0, inputList.size() ).forEachOrdered( i -> {
-                final byte[][] inputs = inputList.toArray( new byte[inputList.size()][] );
-                final int index = i;
-                if ( action.equals( Action.DECRYPT ) ) {
-                    executorService.submit( () -> {
-                            try {
-                                outputs[index] = cryptosystem.decrypt( inputs[index] );
-                            }
-                            catch ( Throwable t ) {
-                                exit( t );
-                            }
-                        }
+        final BaseNChunkCodec outputCodec = outputCodec( config );
+        if ( outputCodec != null ) {
+            final ChunkBuffer encoded = chunkBufferPool.acquire();
+            if ( outputLengths == null ) {
+                outputCodec.encode( chunk, encoded.buffer() );
+            }
+            else {
+                int offset = chunk.position();
+                for ( final int outputLength : outputLengths ) {
+                    outputCodec.encode( chunk.slice( offset, outputLength ), encoded.buffer() );
+                    offset += outputLength;
+                }
+            }
+            chunkBuffer.release();
+            chunkBuffer = encoded;
+            encoded.buffer().flip();
+        }
+        final long encodedNanos = System.nanoTime();
+
+        metrics.recordBaseNDecode( decodedNanos - startNanos );
+        metrics.recordBaseNEncode( encodedNanos - processedNanos );
+        metrics.recordBusy( encodedNanos - startNanos );
+
+        return chunkBuffer;
+    }
+
+    /**
+     * Encrypts or decrypts the chunk's cryptosystem chunks in place, which
+     * leaves the chunk ready to be read from as the output.  A positional
+     * cryptosystem gets each chunk's position in the stream.
+     *
+     * @return the output length of each cryptosystem chunk, or null when the
+     * chunk holds only one.
+     */
+    @Nullable
+    private static int[] processChunkInPlace(
+        @Nonnull final ByteBuffer chunk, @Nonnull final Config config,
+        @Nonnull final Cryptosystem cryptosystem, boolean isDecrypt, long firstChunkIndex
+    ) throws IOException {
+        final int chunkSize = config.chunkSize();
+        final int count = Math.max( 1, (chunk.remaining() + chunkSize - 1) / chunkSize );
+        final int[] outputLengths = new int[count];
+        final byte[] array = chunk.array();
+        for ( int i = 0; i < count; i++ ) {
+            final int offset = chunk.position() + i * chunkSize;
+            final int length = Math.min( chunkSize, chunk.limit() - offset );
+            if ( cryptosystem instanceof PositionalCryptosystem positionalCryptosystem ) {
+                if ( isDecrypt ) {
+                    positionalCryptosystem.decryptInPlace(
+                        array, chunk.arrayOffset() + offset, length, firstChunkIndex + i
                     );
                 }
-                else if ( action.equals( Action.ENCRYPT ) ) {
-                    executorService.submit( () -> {
-                            try {
-                                outputs[index] = cryptosystem.encrypt( inputs[index] );
-                            }
-                            catch ( Throwable t ) {
-                                exit( t );
-                            }
-                        }
+                else {
+                    positionalCryptosystem.encryptInPlace(
+                        array, chunk.arrayOffset() + offset, length, firstChunkIndex + i
                     );
                 }
-            } );
+            }
+            else if ( isDecrypt ) {
+                cryptosystem.decryptInPlace( array, chunk.arrayOffset() + offset, length );
+            }
+            else {
+                cryptosystem.encryptInPlace( array, chunk.arrayOffset() + offset, length );
+            }
+            outputLengths[i] = length;
         }
 
-        return Arrays.asList( outputs );
+        return count > 1 ? outputLengths : null;
     }
 
-    @Nonnull
-    private static List<byte[]> processChunksConcurrentlyUsingRxJava(
-        @NonNull final List<byte[]> inputList, @Nonnull final Config config
-    ) {
-        final Action action = config.action();
-        final Cryptosystem cryptosystem = config.cryptosystem();
+    /**
+     * Encrypts or decrypts the chunk into the output buffer, as one batch when
+     * it holds several cryptosystem chunks.  A positional cryptosystem always
+     * gets a batch, starting at the chunk's position in the stream.
+     *
+     * @return the output length of each cryptosystem chunk, or null when the
+     * chunk holds only one.
+     */
+    @Nullable
+    private static int[] processChunkIntoOutput(
+        @Nonnull final ByteBuffer chunk, @Nonnull final ByteBuffer output, @Nonnull final Config config,
+        @Nonnull final Cryptosystem cryptosystem, boolean isDecrypt, long firstChunkIndex
+    ) throws IOException {
+        if ( cryptosystem instanceof PositionalCryptosystem positionalCryptosystem ) {
+            final ByteBuffer[] chunks = chunk.remaining() <= config.chunkSize()
+                ? new ByteBuffer[]{chunk} : split( chunk, config.chunkSize() );
+            final int[] outputLengths = isDecrypt
+                ? positionalCryptosystem.decryptBatch( chunks, output, firstChunkIndex )
+                : positionalCryptosystem.encryptBatch( chunks, output, firstChunkIndex );
+
+            return chunks.length > 1 ? outputLengths : null;
+        }
+        if ( chunk.remaining() <= config.chunkSize() ) {
+            if ( isDecrypt ) {
+                cryptosystem.decrypt( chunk, output );
+            }
+            else {
+                cryptosystem.encrypt( chunk, output );
+            }
 
-        final byte[][] outputs = new byte[inputList.size()][];
+            return null;
+        }
 
-        try (
-            final AutoCloseableExecutorServiceHolder autoCloseableExecutorServiceHolder =
-                new AutoCloseableExecutorServiceHolder( Executors.newFixedThreadPool( config.threadCount() ) )
-        ) {
-            final ExecutorService executorService = autoCloseableExecutorServiceHolder.executorService();
-            final ExecutorScheduler executorScheduler = new ExecutorScheduler(
-                executorService, false, true
-            );
+        final ByteBuffer[] chunks = split( chunk, config.chunkSize() );
 
-            IntStream.range( 0, inputList.size() ).forEachOrdered( i -> {
-                final byte[][] inputs = inputList.toArray( new byte[inputList.size()][] );
-                final int index = i;
-                if ( action.equals( Action.DECRYPT ) ) {
-                    executorScheduler.scheduleDirect( () -> {
-                        try {
-                            outputs[index] = cryptosystem.decrypt( inputs[index] );
-                        }
-                        catch ( IOException e ) {
-                            exit( e );
-                        }
-                    } );
-                }
-                else if ( action.equals( Action.ENCRYPT ) ) {
-                    executorScheduler.scheduleDirect( () -> {
-                        try {
-                            outputs[index] = cryptosystem.encrypt( inputs[index] );
-                        }
-                        catch ( IOException e ) {
-                            exit( e );
-                        }
-                    } );
-                }
-            } );
+        return isDecrypt
+            ? cryptosystem.decryptBatch( chunks, output ) : cryptosystem.encryptBatch( chunks, output );
+    }
 
-            final Scheduler.Worker worker = executorScheduler.createWorker();
-            final Single<Scheduler.Worker> single = Single.just( worker );
-            single.doOnError( Main::exit );
-            executorScheduler.start();
-            single.blockingSubscribe();
+    /**
+     * Encrypts or decrypts each of the chunk's cryptosystem chunks at its
+     * position in the stream, which the session cryptosystem authenticates.
+     * Each chunk's latency gets recorded on its own.
+     *
+     * @return the output length of each cryptosystem chunk, or null when the
+     * chunk holds only one.
+     */
+    @Nullable
+    private static int[] processSessionChunk(
+        @Nonnull final ByteBuffer chunk, @Nonnull final ByteBuffer output, @Nonnull final Config config,
+        @Nonnull final SessionCryptosystem cryptosystem, boolean isDecrypt,
+        long firstChunkIndex, boolean holdsLastChunk, @Nonnull final CryptoMetrics metrics
+    ) throws IOException {
+        final ByteBuffer[] chunks = chunk.remaining() <= config.chunkSize()
+            ? new ByteBuffer[]{chunk} : split( chunk, config.chunkSize() );
+        final int[] outputLengths = new int[chunks.length];
+        for ( int i = 0; i < chunks.length; i++ ) {
+            final long chunkIndex = firstChunkIndex + i;
+            final boolean lastChunk = holdsLastChunk && i == chunks.length - 1;
+            final long startNanos = System.nanoTime();
+            final byte[] result = isDecrypt
+                ? cryptosystem.decrypt( toByteArray( chunks[i] ), chunkIndex, lastChunk )
+                : cryptosystem.encrypt( toByteArray( chunks[i] ), chunkIndex, lastChunk );
+            metrics.recordChunk( System.nanoTime() - startNanos );
+            output.put( result );
+            outputLengths[i] = result.length;
+        }
+
+        return chunks.length > 1 ? outputLengths : null;
+    }
+
+    @Nonnull
+    private static ByteBuffer[] split( @Nonnull final ByteBuffer buffer, int chunkSize ) {
+        final int count = (buffer.remaining() + chunkSize - 1) / chunkSize;
+        final ByteBuffer[] chunks = new ByteBuffer[count];
+        for ( int i = 0; i < count; i++ ) {
+            final int offset = buffer.position() + i * chunkSize;
+            chunks[i] = buffer.slice( offset, Math.min( chunkSize, buffer.limit() - offset ) );
         }
 
-        return Arrays.asList( outputs );
+        return chunks;
+    }
+
+    @Nullable
+    private static BaseNChunkCodec inputCodec( @Nonnull final Config config ) {
+        return config.baseNDecodeInput() ? BaseNChunkCodec.forBaseN( config.baseN() ) : null;
+    }
+
+    @Nullable
+    private static BaseNChunkCodec outputCodec( @Nonnull final Config config ) {
+        return config.baseNEncodeOutput() ? BaseNChunkCodec.forBaseN( config.baseN() ) : null;
     }
 
     @Nonnull
     private static synchronized OptionParser getCliParser() {
-        final OptionParser parser = new OptionParser( "+c:?e?d?b:?k:?t:?x?h?u?p:?" );
+        final OptionParser parser = new OptionParser( "+c:?e?d?b:?k:?t:?w:?x?l?f?r:?i:?o:?s?j?m?a?v?h?u?p:?" );
 
         parser.recognizeAlternativeLongOptions( true );
         parser.accepts( "cryptosystem" );
@@ -736,8 +1102,19 @@ public final class Main {
         parser.accepts( "decrypt" );
         parser.accepts( "baseN" ).withRequiredArg().defaultsTo( "64" );
         parser.accepts( "rxjava" );
+        parser.accepts( "pipeline" );
+        parser.accepts( "framed" );
+        parser.accepts( "range" ).withRequiredArg();
+        parser.accepts( "in" ).withRequiredArg();
+        parser.accepts( "out" ).withRequiredArg();
+        parser.accepts( "stats" );
+        parser.accepts( "jmx" );
+        parser.accepts( "offheap" );
+        parser.accepts( "warmup" );
+        parser.accepts( "verbose" );
         parser.accepts( "key" ).withRequiredArg().defaultsTo( "64" );
         parser.accepts( "threads" ).withRequiredArg().defaultsTo( String.valueOf( DEFAULT_THREAD_COUNT ) );
+        parser.accepts( "workers" ).withRequiredArg().defaultsTo( ExecutionEngine.Backend.PLATFORM.name() );
         parser.accepts( "help" );
         parser.accepts( "usage" );
         parser.accepts( "usage_filename" );
@@ -747,7 +1124,7 @@ public final class Main {
 
 
     public enum CryptosystemName {
-        NOOP, XOR, NTRU
+        NOOP, XOR, NTRU, NTRU_HYBRID
     }
 
 
@@ -812,43 +1189,4 @@ public final class Main {
             return message;
         }
     }
-
-
-    /**
-     * This record exists because ExecutorService does not implement AutoCloseable
-     * Java version 19.
-     */
-    private record AutoCloseableExecutorServiceHolder(
-        @Nonnull ExecutorService executorService
-    ) implements AutoCloseable {
-
-        @Override
-        @Nonnull
-        public ExecutorService executorService() {
-            return executorService;
-        }
-
-        @Override
-        public void close() {
-            executorService.shutdown();
-            while ( !executorService.isTerminated() ) {
-                try {
-                    if ( !executorService.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS ) ) {
-                        exit( ExitCode.INTERRUPTED );
-                    }
-                }
-                catch ( InterruptedException e ) {
-                    exit( e );
-                }
-            }
-
-            if ( executorService instanceof AutoCloseable ) {
-                try {
-                    ((AutoCloseable) executorService).close();
-                }
-                catch ( Exception ignored ) {
-                }
-            }
-        }
-    }
 }
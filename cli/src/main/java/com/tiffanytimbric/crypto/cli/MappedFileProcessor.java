@@ -0,0 +1,166 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.ChunkBuffer;
+import com.tiffanytimbric.crypto.api.ChunkBufferPool;
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.api.PositionalCryptosystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements file to file processing for length preserving
+ * cryptosystems.  The input file gets memory mapped a region at a time, and
+ * each region gets split into one span of whole chunks per worker.  Since
+ * every output chunk lands at the same offset as its input chunk, workers
+ * write their chunks with positional writes as soon as they are done, with
+ * no reader thread, writer thread or ordering between them.
+ */
+final class MappedFileProcessor {
+
+    private static final long MAX_REGION_SIZE = 64L * 1024 * 1024;
+
+    private final Config config;
+    private final ExecutionEngine executionEngine;
+    private final ChunkBufferPool chunkBufferPool;
+    private final CryptoMetrics metrics;
+
+
+    MappedFileProcessor(
+        @Nonnull final Config config,
+        @Nonnull final ExecutionEngine executionEngine,
+        @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final CryptoMetrics metrics
+    ) {
+        this.config = config;
+        this.executionEngine = executionEngine;
+        this.chunkBufferPool = chunkBufferPool;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return whether the configuration allows output offsets to be computed
+     * up front: file input and output, a length preserving cryptosystem, and
+     * no BaseN coding or framing.
+     */
+    static boolean isApplicable( @Nonnull final Config config ) {
+        return config.inputFile() != null && config.outputFile() != null
+            && config.cryptosystem().isLengthPreserving()
+            && !config.baseNDecodeInput() && !config.baseNEncodeOutput()
+            && !config.framed();
+    }
+
+    void run( @Nonnull final FileChannel inputChannel, @Nonnull final FileChannel outputChannel ) throws IOException {
+        final long size = inputChannel.size();
+        final int chunkSize = config.chunkSize();
+        final long regionSize = Math.max( chunkSize, MAX_REGION_SIZE / chunkSize * chunkSize );
+        final List<Future<?>> futures = new ArrayList<>( config.threadCount() );
+
+        for ( long regionOffset = 0; regionOffset < size; regionOffset += regionSize ) {
+            final MappedByteBuffer region = inputChannel.map(
+                FileChannel.MapMode.READ_ONLY, regionOffset, Math.min( regionSize, size - regionOffset )
+            );
+            final int chunkCount = (region.capacity() + chunkSize - 1) / chunkSize;
+            final int spanCount = Math.max( 1, Math.min( config.threadCount(), chunkCount ) );
+
+            for ( int span = 0; span < spanCount; span++ ) {
+                final int firstChunk = (int) ((long) chunkCount * span / spanCount);
+                final int endChunk = (int) ((long) chunkCount * (span + 1) / spanCount);
+                final long spanRegionOffset = regionOffset;
+                futures.add( executionEngine.submit( () -> {
+                    processSpan( region, spanRegionOffset, firstChunk, endChunk, outputChannel );
+
+                    return null;
+                } ) );
+            }
+
+            awaitCompletion( futures );
+            futures.clear();
+        }
+    }
+
+    private void processSpan(
+        @Nonnull final MappedByteBuffer region, long regionOffset, int firstChunk, int endChunk,
+        @Nonnull final FileChannel outputChannel
+    ) throws IOException {
+        final Cryptosystem cryptosystem = config.cryptosystem();
+        final int chunkSize = config.chunkSize();
+        final ChunkBuffer outputBuffer = chunkBufferPool.acquire();
+        final ByteBuffer output = outputBuffer.buffer();
+        try {
+            for ( int chunk = firstChunk; chunk < endChunk; chunk++ ) {
+                final int offset = chunk * chunkSize;
+                final int length = Math.min( chunkSize, region.capacity() - offset );
+                final ByteBuffer input = region.slice( offset, length );
+
+                final long startNanos = System.nanoTime();
+                output.clear();
+                final long chunkIndex = (regionOffset + offset) / chunkSize;
+                if ( cryptosystem instanceof PositionalCryptosystem positionalCryptosystem ) {
+                    if ( Main.Action.DECRYPT.equals( config.action() ) ) {
+                        positionalCryptosystem.decrypt( input, output, chunkIndex );
+                    }
+                    else {
+                        positionalCryptosystem.encrypt( input, output, chunkIndex );
+                    }
+                }
+                else if ( Main.Action.DECRYPT.equals( config.action() ) ) {
+                    cryptosystem.decrypt( input, output );
+                }
+                else {
+                    cryptosystem.encrypt( input, output );
+                }
+                output.flip();
+                final long processedNanos = System.nanoTime();
+                metrics.recordChunk( processedNanos - startNanos );
+                metrics.recordRead( length, 0 );
+                if ( output.remaining() != length ) {
+                    throw new IOException( String.format(
+                        "Unexpected output length from a length preserving cryptosystem.  Input Length: %d, Output Length: %d",
+                        length, output.remaining()
+                    ) );
+                }
+
+                long position = regionOffset + offset;
+                while ( output.hasRemaining() ) {
+                    position += outputChannel.write( output, position );
+                }
+                final long writtenNanos = System.nanoTime();
+                metrics.recordWrite( length, writtenNanos - processedNanos );
+                metrics.recordBusy( writtenNanos - startNanos );
+            }
+        }
+        finally {
+            outputBuffer.release();
+        }
+    }
+
+    private static void awaitCompletion( @Nonnull final List<Future<?>> futures ) throws IOException {
+        try {
+            for ( final Future<?> future : futures ) {
+                future.get();
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            Main.exit( Main.ExitCode.INTERRUPTED );
+        }
+        catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof IOException ioException ) {
+                throw ioException;
+            }
+
+            Main.exit( e.getCause() );
+        }
+    }
+
+}
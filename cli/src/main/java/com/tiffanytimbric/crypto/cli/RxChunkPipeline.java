@@ -0,0 +1,161 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.ChunkBuffer;
+import com.tiffanytimbric.crypto.api.ChunkBufferPool;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements the read/process/write pipeline as a backpressured
+ * RxJava {@link Flowable}.  Chunks get generated from the
+ * {@link ChunkReader} on one of the {@link ExecutionEngine}'s I/O threads, only
+ * as fast as downstream requests them.  Each chunk gets processed on the
+ * engine's crypto workers, with up to a bounded number of chunks in flight at
+ * once, and the results get emitted in the order the chunks were read.  The
+ * calling thread acts as the writer.
+ * <p>
+ * Request-N backpressure bounds the chunks held in memory to the in flight
+ * limit plus the writer's prefetch.  Chunk buffers come from a
+ * {@link ChunkBufferPool} and go back to it once written.
+ * <p>
+ * When writing fails, the flow gets disposed.  Chunks still in flight may
+ * then fail with nowhere to deliver the error, such as when the engine
+ * rejects them while shutting down.  Those errors get dropped by the
+ * pipeline itself, so the write failure is the only error reported, without
+ * touching RxJava's process wide error handler.
+ */
+final class RxChunkPipeline {
+
+    private static final int IN_FLIGHT_CHUNKS_PER_THREAD = 2;
+
+    private final Config config;
+    private final ExecutionEngine executionEngine;
+    private final ChunkBufferPool chunkBufferPool;
+    private final CryptoMetrics metrics;
+    private final int maxInFlightChunks;
+    private volatile boolean stopped = false;
+
+
+    RxChunkPipeline(
+        @Nonnull final Config config,
+        @Nonnull final ExecutionEngine executionEngine,
+        @Nonnull final ChunkBufferPool chunkBufferPool,
+        @Nonnull final CryptoMetrics metrics
+    ) {
+        this.config = config;
+        this.executionEngine = executionEngine;
+        this.chunkBufferPool = chunkBufferPool;
+        this.metrics = metrics;
+        this.maxInFlightChunks = Math.max( 1, config.threadCount() ) * IN_FLIGHT_CHUNKS_PER_THREAD;
+    }
+
+    /**
+     * Runs the pipeline until the input is exhausted and every processed chunk
+     * has been written.
+     */
+    void run(
+        @Nonnull final ChunkReader chunkReader,
+        @Nonnull final ChunkWriter chunkWriter
+    ) throws IOException, ValidationException {
+        final Scheduler ioScheduler = Schedulers.from( newExecutor( executionEngine.ioExecutorService() ) );
+        final Scheduler cryptoScheduler = Schedulers.from( newExecutor( executionEngine.executorService() ) );
+
+        final Flowable<ChunkBuffer> outputs = Flowable.<ChunkBuffer>generate( emitter -> {
+                final ChunkBuffer input = chunkBufferPool.acquire();
+                if ( !chunkReader.read( input ).hasRemaining() ) {
+                    input.release();
+                    emitter.onComplete();
+
+                    return;
+                }
+
+                metrics.chunkQueued();
+                emitter.onNext( input );
+            } )
+            .subscribeOn( ioScheduler )
+            .concatMapEager(
+                input -> Flowable.defer( () -> processChunk( input ) ).subscribeOn( cryptoScheduler ),
+                maxInFlightChunks, 1
+            );
+
+        final Stream<ChunkBuffer> outputStream = outputs.blockingStream( maxInFlightChunks );
+        try {
+            final Iterator<ChunkBuffer> iterator = outputStream.iterator();
+            while ( iterator.hasNext() ) {
+                final ChunkBuffer output = iterator.next();
+                Main.validateOutput( output, config );
+
+                chunkWriter.write( output.buffer() );
+                output.release();
+                metrics.chunkDequeued();
+            }
+        }
+        catch ( RuntimeException e ) {
+            stopped = true;
+            if ( e.getCause() instanceof IOException ioException ) {
+                throw ioException;
+            }
+
+            throw e;
+        }
+        catch ( IOException | ValidationException e ) {
+            stopped = true;
+
+            throw e;
+        }
+        finally {
+            outputStream.close();
+        }
+
+        chunkWriter.flush();
+    }
+
+    /**
+     * Processes the chunk, failing the returned flow when processing fails,
+     * unless the pipeline has stopped, where nothing is left to deliver the
+     * error to.
+     */
+    @Nonnull
+    private Flowable<ChunkBuffer> processChunk( @Nonnull final ChunkBuffer input ) {
+        try {
+            return Flowable.just( Main.processChunk( input, config, chunkBufferPool, metrics ) );
+        }
+        catch ( Exception e ) {
+            if ( stopped ) {
+                return Flowable.empty();
+            }
+
+            return Flowable.error( e );
+        }
+    }
+
+    /**
+     * @return an executor running tasks on the given one, which drops the
+     * tasks it rejects once the pipeline has stopped, as the engine shuts
+     * down then.
+     */
+    @Nonnull
+    private Executor newExecutor( @Nonnull final Executor executor ) {
+        return command -> {
+            try {
+                executor.execute( command );
+            }
+            catch ( RejectedExecutionException e ) {
+                if ( !stopped ) {
+                    throw e;
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.tiffanytimbric.crypto.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class BaseNChunkCodecTest {
+
+    private static final int[] BASE_NS = {16, 32, 64};
+
+    private final Random random = new Random( 42 );
+
+
+    @Test
+    void roundTripsEveryLengthAcrossBlockBoundaries() throws IOException {
+        for ( final int baseN : BASE_NS ) {
+            final BaseNChunkCodec codec = BaseNChunkCodec.forBaseN( baseN );
+            for ( int length = 0; length <= 41; length++ ) {
+                final byte[] bytes = randomBytes( length );
+                final String text = encode( codec, bytes );
+
+                assertTrue( text.length() <= codec.maxEncodedLength( length ), "Base" + baseN + " length " + length );
+                assertTrue( text.endsWith( "=" ), "Base" + baseN + " length " + length );
+                assertArrayEquals( bytes, decode( codec, text, length ), "Base" + baseN + " length " + length );
+            }
+        }
+    }
+
+    @Test
+    void roundTripsFullChunk() throws IOException {
+        for ( final int baseN : BASE_NS ) {
+            final BaseNChunkCodec codec = BaseNChunkCodec.forBaseN( baseN );
+            final byte[] bytes = randomBytes( 65532 );
+
+            assertArrayEquals( bytes, decode( codec, encode( codec, bytes ), bytes.length ) );
+        }
+    }
+
+    @Test
+    void encodesAsTheBaseNUtilities() {
+        for ( int length = 1; length <= 20; length++ ) {
+            final byte[] bytes = randomBytes( length );
+
+            assertEquals( Base16Util.encode( bytes ), encode( BaseNChunkCodec.BASE16, bytes ) );
+            assertTrue( encode( BaseNChunkCodec.BASE32, bytes ).startsWith( Base32Util.encode( bytes ) ) );
+            assertTrue( encode( BaseNChunkCodec.BASE64, bytes ).startsWith( Base64Util.encode( bytes ) ) );
+        }
+    }
+
+    @Test
+    void delimitsChunksWhichNeedNoPadding() {
+        assertEquals( "Zm9v==", encode( BaseNChunkCodec.BASE64, ascii( "foo" ) ) );
+        assertEquals( "Zm9vYg==", encode( BaseNChunkCodec.BASE64, ascii( "foob" ) ) );
+        assertEquals( "MZXW6YTBOI======", encode( BaseNChunkCodec.BASE32, ascii( "foobar" ) ) );
+        assertEquals( "MZXW6YTBOJRGC===", encode( BaseNChunkCodec.BASE32, ascii( "foobarba" ) ) );
+        assertEquals( "MZXW6YTB=", encode( BaseNChunkCodec.BASE32, ascii( "fooba" ) ) );
+        assertEquals( "666F6F=", encode( BaseNChunkCodec.BASE16, ascii( "foo" ) ) );
+    }
+
+    @Test
+    void decodesUnpaddedChunk() throws IOException {
+        assertArrayEquals( ascii( "fooba" ), decode( BaseNChunkCodec.BASE64, "Zm9vYmE", 16 ) );
+        assertArrayEquals( ascii( "foob" ), decode( BaseNChunkCodec.BASE32, "MZXW6YQ", 16 ) );
+        assertArrayEquals( ascii( "foo" ), decode( BaseNChunkCodec.BASE16, "666f6f", 16 ) );
+    }
+
+    @Test
+    void decodeStopsAtTheChunkPadding() throws IOException {
+        final ByteBuffer text = ByteBuffer.wrap( ascii( "Zm9vYg==YmFy==" ) );
+        final ByteBuffer dst = ByteBuffer.allocate( 16 );
+        BaseNChunkCodec.BASE64.decode( text, dst );
+
+        assertArrayEquals( ascii( "foob" ), toByteArray( dst.flip() ) );
+        assertEquals( text.limit(), text.position() );
+    }
+
+    @Test
+    void decodeSkipsWhitespaceAndUrlSafeCharacters() throws IOException {
+        assertArrayEquals( ascii( "foobar" ), decode( BaseNChunkCodec.BASE64, "Zm9v\nYmFy\r\n==", 16 ) );
+        assertArrayEquals( new byte[]{(byte) 0xFB, (byte) 0xFF}, decode( BaseNChunkCodec.BASE64, "-_8=", 16 ) );
+    }
+
+    @Test
+    void decodeRejectsInvalidCharacter() {
+        assertThrows( IOException.class, () -> decode( BaseNChunkCodec.BASE64, "Zm9*", 16 ) );
+        assertThrows( IOException.class, () -> decode( BaseNChunkCodec.BASE32, "MZXW1===", 16 ) );
+        assertThrows( IOException.class, () -> decode( BaseNChunkCodec.BASE16, "66G6=", 16 ) );
+    }
+
+    @Test
+    void decodeRejectsChunkLongerThanTheDestination() {
+        final String text = encode( BaseNChunkCodec.BASE64, randomBytes( 17 ) );
+
+        assertThrows( IOException.class, () -> decode( BaseNChunkCodec.BASE64, text, 16 ) );
+    }
+
+    @Test
+    void rejectsUnsupportedBaseN() {
+        assertThrows( IllegalArgumentException.class, () -> BaseNChunkCodec.forBaseN( 8 ) );
+    }
+
+    @Nonnull
+    private byte[] randomBytes( int length ) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes( bytes );
+
+        return bytes;
+    }
+
+    @Nonnull
+    private static String encode( @Nonnull final BaseNChunkCodec codec, @Nonnull final byte[] bytes ) {
+        final ByteBuffer dst = ByteBuffer.allocate( codec.maxEncodedLength( bytes.length ) );
+        codec.encode( ByteBuffer.wrap( bytes ), dst );
+
+        return new String( dst.array(), 0, dst.position(), StandardCharsets.US_ASCII );
+    }
+
+    @Nonnull
+    private static byte[] decode(
+        @Nonnull final BaseNChunkCodec codec, @Nonnull final String text, int maxLength
+    ) throws IOException {
+        final ByteBuffer dst = ByteBuffer.allocate( maxLength );
+        codec.decode( ByteBuffer.wrap( ascii( text ) ), dst );
+
+        return toByteArray( dst.flip() );
+    }
+
+    @Nonnull
+    private static byte[] toByteArray( @Nonnull final ByteBuffer buffer ) {
+        return Arrays.copyOfRange( buffer.array(), buffer.position(), buffer.limit() );
+    }
+
+    @Nonnull
+    private static byte[] ascii( @Nonnull final String text ) {
+        return text.getBytes( StandardCharsets.US_ASCII );
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.tiffanytimbric.crypto.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class ChunkContainerTest {
+
+    private static final ChunkContainer.Header HEADER = new ChunkContainer.Header(
+        "NTRU_HYBRID", 65532, 65560, 64, new byte[]{1, 2, 3, 4, 5}
+    );
+
+
+    @Test
+    void roundTripsHeader() throws IOException {
+        final ChunkContainer.Header header = ChunkContainer.Header.read(
+            new ByteArrayInputStream( HEADER.toByteArray() )
+        );
+
+        assertEquals( HEADER.cryptosystemName(), header.cryptosystemName() );
+        assertEquals( HEADER.chunkSizeEncrypt(), header.chunkSizeEncrypt() );
+        assertEquals( HEADER.chunkSizeDecrypt(), header.chunkSizeDecrypt() );
+        assertEquals( HEADER.baseN(), header.baseN() );
+        assertArrayEquals( HEADER.sessionHeader(), header.sessionHeader() );
+    }
+
+    @Test
+    void rejectsInvalidMagicNumber() throws IOException {
+        final byte[] bytes = HEADER.toByteArray();
+        bytes[0] ^= 1;
+
+        assertThrows( IOException.class, () -> ChunkContainer.Header.read( new ByteArrayInputStream( bytes ) ) );
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() throws IOException {
+        final byte[] bytes = HEADER.toByteArray();
+        bytes[Integer.BYTES] = ChunkContainer.VERSION + 1;
+
+        assertThrows( IOException.class, () -> ChunkContainer.Header.read( new ByteArrayInputStream( bytes ) ) );
+    }
+
+    @Test
+    void rejectsUnsupportedBaseN() throws IOException {
+        final byte[] bytes = new ChunkContainer.Header( "XOR", 64, 64, 8, new byte[0] ).toByteArray();
+
+        assertThrows( IOException.class, () -> ChunkContainer.Header.read( new ByteArrayInputStream( bytes ) ) );
+    }
+
+    @Test
+    void rejectsTruncatedHeader() throws IOException {
+        final byte[] bytes = HEADER.toByteArray();
+
+        for ( int length = 0; length < bytes.length; length++ ) {
+            final byte[] truncated = Arrays.copyOf( bytes, length );
+            assertThrows( EOFException.class, () -> ChunkContainer.Header.read( new ByteArrayInputStream( truncated ) ) );
+        }
+    }
+
+}
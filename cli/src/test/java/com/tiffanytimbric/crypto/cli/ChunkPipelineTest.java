@@ -0,0 +1,120 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.noop.NoopCryptosystem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+
+class ChunkPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds( 30 );
+
+
+    @Test
+    void writesEveryChunkInOrder() {
+        final byte[] plainText = new byte[3 * 1024 * 1024 + 17];
+        new Random( 42 ).nextBytes( plainText );
+
+        assertTimeoutPreemptively( TIMEOUT, () -> {
+            final Config config = newConfig( 2 );
+            final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try ( final ExecutionEngine executionEngine = ExecutionEngine.create( config.executionBackend(), 2 ) ) {
+                run( config, executionEngine, new ByteArrayInputStream( plainText ), byteArrayOutputStream );
+            }
+
+            assertArrayEquals( plainText, byteArrayOutputStream.toByteArray() );
+        } );
+    }
+
+    /**
+     * The reader keeps reading an endless input, so it blocks on the full
+     * queue once the writer fails, which used to keep the engine from
+     * closing.
+     */
+    @Test
+    void returnsWhenWritingFails() {
+        assertTimeoutPreemptively( TIMEOUT, () -> {
+            final Config config = newConfig( 2 );
+            final ExecutionEngine executionEngine = ExecutionEngine.create( config.executionBackend(), 2 );
+            try {
+                assertThrows(
+                    IOException.class,
+                    () -> run( config, executionEngine, new ZeroInputStream(), new FullOutputStream() )
+                );
+            }
+            finally {
+                executionEngine.close();
+            }
+        } );
+    }
+
+    private static void run(
+        @Nonnull final Config config, @Nonnull final ExecutionEngine executionEngine,
+        @Nonnull final InputStream inputStream, @Nonnull final OutputStream outputStream
+    ) throws IOException, ValidationException {
+        final CryptoMetrics metrics = new CryptoMetrics( config );
+        final ChunkWriter chunkWriter = new ChunkWriter( config, outputStream, metrics );
+        new ChunkPipeline( config, executionEngine, Main.newChunkBufferPool( config ), metrics )
+            .run( new ChunkReader( config, inputStream, metrics ), chunkWriter );
+        chunkWriter.finish();
+    }
+
+    @Nonnull
+    private static Config newConfig( int threadCount ) {
+        final Cryptosystem cryptosystem = new NoopCryptosystem();
+
+        return new Config(
+            Main.Action.ENCRYPT, "NOOP", cryptosystem, cryptosystem.getChunkSizeEncrypt(), threadCount,
+            ExecutionEngine.Backend.PLATFORM, false, false, 0, false, null, null, null,
+            false, true, false, false, false, false, false
+        );
+    }
+
+
+    private static final class ZeroInputStream extends InputStream {
+
+        @Override
+        public int read() {
+            return 0;
+        }
+
+        @Override
+        public int read( @Nonnull final byte[] bytes, int offset, int length ) {
+            Arrays.fill( bytes, offset, offset + length, (byte) 0 );
+
+            return length;
+        }
+
+    }
+
+
+    private static final class FullOutputStream extends OutputStream {
+
+        @Override
+        public void write( int b ) throws IOException {
+            throw new IOException( "No space left on device" );
+        }
+
+        @Override
+        public void write( @Nonnull final byte[] bytes, int offset, int length ) throws IOException {
+            throw new IOException( "No space left on device" );
+        }
+
+    }
+
+}
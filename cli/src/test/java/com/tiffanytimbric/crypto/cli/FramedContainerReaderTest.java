@@ -0,0 +1,241 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.noop.NoopCryptosystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class FramedContainerReaderTest {
+
+    private static final int CHUNK_SIZE = 16;
+
+    @TempDir
+    Path folder;
+
+    private byte[] plainText;
+
+
+    @BeforeEach
+    void setUp() {
+        plainText = new byte[CHUNK_SIZE * 6 + 4];
+        new Random( 42 ).nextBytes( plainText );
+    }
+
+    @Test
+    void readsBackEveryFrame() throws IOException {
+        for ( final int baseN : new int[]{0, 16, 32, 64} ) {
+            final Path container = writeContainer( plainText, baseN );
+            try ( final FileChannel channel = FileChannel.open( container ) ) {
+                final FramedContainerReader reader = new FramedContainerReader( channel, newCryptosystem() );
+
+                assertEquals( "NOOP", reader.getCryptosystemName() );
+                assertEquals( 7, reader.getFrameCount() );
+                assertArrayEquals( plainText, reader.decryptRange( 0, plainText.length ), "BaseN " + baseN );
+            }
+        }
+    }
+
+    @Test
+    void readsRangesStartingAndEndingInsideFrames() throws IOException {
+        final Path container = writeContainer( plainText, 64 );
+        try ( final FileChannel channel = FileChannel.open( container ) ) {
+            final FramedContainerReader reader = new FramedContainerReader( channel, newCryptosystem() );
+
+            for ( int offset = 0; offset <= plainText.length + 1; offset++ ) {
+                for ( final int length : new int[]{1, 5, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 40, 1000} ) {
+                    final int end = Math.min( plainText.length, offset + length );
+                    final byte[] expected = offset < end ? Arrays.copyOfRange( plainText, offset, end ) : new byte[0];
+
+                    assertArrayEquals( expected, reader.decryptRange( offset, length ), offset + ":" + length );
+                }
+            }
+        }
+    }
+
+    @Test
+    void readsZeroLengthRange() throws IOException {
+        final Path container = writeContainer( plainText, 0 );
+        try ( final FileChannel channel = FileChannel.open( container ) ) {
+            final FramedContainerReader reader = new FramedContainerReader( channel, newCryptosystem() );
+
+            assertEquals( 0, reader.decryptRange( 0, 0 ).length );
+            assertEquals( 0, reader.decryptRange( CHUNK_SIZE + 3, 0 ).length );
+            assertEquals( 0, reader.decryptRange( 0, 0, new ByteArrayOutputStream() ) );
+        }
+    }
+
+    @Test
+    void readsEmptyContainer() throws IOException {
+        final Path container = writeContainer( new byte[0], 0 );
+        try ( final FileChannel channel = FileChannel.open( container ) ) {
+            final FramedContainerReader reader = new FramedContainerReader( channel, newCryptosystem() );
+
+            assertEquals( 0, reader.getFrameCount() );
+            assertEquals( 0, reader.decryptRange( 0, 10 ).length );
+        }
+    }
+
+    @Test
+    void rejectsNegativeRange() throws IOException {
+        final Path container = writeContainer( plainText, 0 );
+        try ( final FileChannel channel = FileChannel.open( container ) ) {
+            final FramedContainerReader reader = new FramedContainerReader( channel, newCryptosystem() );
+
+            assertThrows( IllegalArgumentException.class, () -> reader.decryptRange( -1, 10 ) );
+            assertThrows( IllegalArgumentException.class, () -> reader.decryptRange( 0, -1 ) );
+        }
+    }
+
+    @Test
+    void rejectsTruncatedContainer() throws IOException {
+        final byte[] container = Files.readAllBytes( writeContainer( plainText, 0 ) );
+
+        for ( final int cut : new int[]{1, ChunkContainer.FOOTER_LENGTH, ChunkContainer.FOOTER_LENGTH + Long.BYTES} ) {
+            final Path truncated = write( Arrays.copyOf( container, container.length - cut ) );
+            assertThrows( IOException.class, () -> open( truncated ) );
+        }
+    }
+
+    @Test
+    void rejectsCorruptedFooter() throws IOException {
+        final byte[] container = Files.readAllBytes( writeContainer( plainText, 0 ) );
+        final int footerOffset = container.length - ChunkContainer.FOOTER_LENGTH;
+
+        final byte[] badMagic = container.clone();
+        badMagic[container.length - 1] ^= 1;
+        assertThrows( IOException.class, () -> open( write( badMagic ) ) );
+
+        final byte[] badFrameCount = container.clone();
+        ByteBuffer.wrap( badFrameCount ).putInt( footerOffset + Long.BYTES, 8 );
+        assertThrows( IOException.class, () -> open( write( badFrameCount ) ) );
+
+        final byte[] badIndexOffset = container.clone();
+        ByteBuffer.wrap( badIndexOffset ).putLong( footerOffset, 3 );
+        assertThrows( IOException.class, () -> open( write( badIndexOffset ) ) );
+    }
+
+    /**
+     * Only the index entry of a range's first frame gets read, so the ranges
+     * start in the frame whose entry got corrupted.
+     */
+    @Test
+    void rejectsCorruptedIndex() throws IOException {
+        final byte[] container = Files.readAllBytes( writeContainer( plainText, 0 ) );
+        final long indexOffset = ByteBuffer.wrap( container ).getLong( container.length - ChunkContainer.FOOTER_LENGTH );
+        final int entryOffset = (int) indexOffset + 2 * Long.BYTES;
+
+        final byte[] pastTheEnd = container.clone();
+        ByteBuffer.wrap( pastTheEnd ).putLong( entryOffset, container.length );
+        assertRangeRejected( write( pastTheEnd ), 2 * CHUNK_SIZE );
+
+        final byte[] intoTheIndex = container.clone();
+        ByteBuffer.wrap( intoTheIndex ).putLong( entryOffset, indexOffset );
+        assertRangeRejected( write( intoTheIndex ), 2 * CHUNK_SIZE + 3 );
+
+        final byte[] insideAFrame = container.clone();
+        final long frameOffset = ByteBuffer.wrap( container ).getLong( entryOffset );
+        ByteBuffer.wrap( insideAFrame ).putLong( entryOffset, frameOffset + ChunkContainer.FRAME_LENGTH_BYTES );
+        ByteBuffer.wrap( insideAFrame ).putInt( (int) frameOffset + ChunkContainer.FRAME_LENGTH_BYTES, 0 );
+        assertRangeRejected( write( insideAFrame ), 3 * CHUNK_SIZE - 1 );
+    }
+
+    @Test
+    void rejectsCorruptedFrameLength() throws IOException {
+        final byte[] container = Files.readAllBytes( writeContainer( plainText, 0 ) );
+        final long indexOffset = ByteBuffer.wrap( container ).getLong( container.length - ChunkContainer.FOOTER_LENGTH );
+        final int frameOffset = (int) ByteBuffer.wrap( container ).getLong( (int) indexOffset + Long.BYTES );
+
+        final byte[] tooLong = container.clone();
+        ByteBuffer.wrap( tooLong ).putInt( frameOffset, container.length );
+        assertRangeRejected( write( tooLong ), 0 );
+
+        final byte[] negative = container.clone();
+        ByteBuffer.wrap( negative ).putInt( frameOffset, -1 );
+        assertRangeRejected( write( negative ), 0 );
+    }
+
+    private void assertRangeRejected( @Nonnull final Path container, long offset ) throws IOException {
+        try ( final FileChannel channel = FileChannel.open( container ) ) {
+            final FramedContainerReader reader = new FramedContainerReader( channel, newCryptosystem() );
+
+            assertThrows( IOException.class, () -> reader.decryptRange( offset, plainText.length ) );
+        }
+    }
+
+    private void open( @Nonnull final Path container ) throws IOException {
+        try ( final FileChannel channel = FileChannel.open( container ) ) {
+            new FramedContainerReader( channel, newCryptosystem() );
+        }
+    }
+
+    /**
+     * Writes the plain text as a framed NOOP container, one frame per chunk,
+     * the way the command line tool does.
+     */
+    @Nonnull
+    private Path writeContainer( @Nonnull final byte[] plainText, int baseN ) throws IOException {
+        final Cryptosystem cryptosystem = newCryptosystem();
+        final Config config = newConfig( cryptosystem );
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final ChunkWriter chunkWriter = new ChunkWriter( config, byteArrayOutputStream, new CryptoMetrics( config ) );
+        chunkWriter.writeHeader( new ChunkContainer.Header( "NOOP", CHUNK_SIZE, CHUNK_SIZE, baseN, new byte[0] ) );
+
+        final BaseNChunkCodec codec = baseN != 0 ? BaseNChunkCodec.forBaseN( baseN ) : null;
+        for ( int offset = 0; offset < plainText.length; offset += CHUNK_SIZE ) {
+            final byte[] chunk = cryptosystem.encrypt(
+                Arrays.copyOfRange( plainText, offset, Math.min( plainText.length, offset + CHUNK_SIZE ) )
+            );
+            ByteBuffer frame = ByteBuffer.wrap( chunk );
+            if ( codec != null ) {
+                final ByteBuffer encoded = ByteBuffer.allocate( codec.maxEncodedLength( chunk.length ) );
+                codec.encode( frame, encoded );
+                frame = encoded.flip();
+            }
+            chunkWriter.write( frame );
+        }
+        chunkWriter.finish();
+
+        return write( byteArrayOutputStream.toByteArray() );
+    }
+
+    @Nonnull
+    private Path write( @Nonnull final byte[] bytes ) throws IOException {
+        return Files.write( Files.createTempFile( folder, "container", ".cryf" ), bytes );
+    }
+
+    @Nonnull
+    private static Cryptosystem newCryptosystem() {
+        final Cryptosystem cryptosystem = new NoopCryptosystem();
+        cryptosystem.setChunkSizeEncrypt( CHUNK_SIZE );
+        cryptosystem.setChunkSizeDecrypt( CHUNK_SIZE );
+
+        return cryptosystem;
+    }
+
+    @Nonnull
+    private static Config newConfig( @Nonnull final Cryptosystem cryptosystem ) {
+        return new Config(
+            Main.Action.ENCRYPT, "NOOP", cryptosystem, CHUNK_SIZE, 1, ExecutionEngine.Backend.PLATFORM,
+            false, false, 0, true, null, null, null,
+            false, false, false, false, false, false, false
+        );
+    }
+
+}
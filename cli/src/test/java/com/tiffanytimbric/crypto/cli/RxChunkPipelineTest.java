@@ -0,0 +1,192 @@
+package com.tiffanytimbric.crypto.cli;
+
+import com.tiffanytimbric.crypto.api.Cryptosystem;
+import com.tiffanytimbric.crypto.api.CryptosystemBase;
+import com.tiffanytimbric.crypto.api.ExecutionEngine;
+import com.tiffanytimbric.crypto.noop.NoopCryptosystem;
+import io.reactivex.rxjava3.functions.Consumer;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+
+class RxChunkPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds( 30 );
+
+
+    @AfterEach
+    void tearDown() {
+        RxJavaPlugins.reset();
+    }
+
+    @Test
+    void writesEveryChunkInOrder() {
+        final byte[] plainText = new byte[3 * 1024 * 1024 + 17];
+        new Random( 42 ).nextBytes( plainText );
+
+        assertTimeoutPreemptively( TIMEOUT, () -> {
+            final Config config = newConfig( new NoopCryptosystem(), 2 );
+            final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try ( final ExecutionEngine executionEngine = ExecutionEngine.create( config.executionBackend(), 2 ) ) {
+                run( config, executionEngine, new ByteArrayInputStream( plainText ), byteArrayOutputStream );
+            }
+
+            assertArrayEquals( plainText, byteArrayOutputStream.toByteArray() );
+        } );
+    }
+
+    /**
+     * The chunks still in flight when writing fails finish while the engine
+     * shuts down, and have nowhere to deliver the errors that follow, which
+     * must not get reported on top of the write failure.
+     */
+    @Test
+    void reportsOnlyTheWriteFailure() {
+        final List<Throwable> undeliverableErrors = new CopyOnWriteArrayList<>();
+        RxJavaPlugins.setErrorHandler( undeliverableErrors::add );
+
+        runUntilWritingFails();
+
+        assertEquals( List.of(), undeliverableErrors );
+    }
+
+    @Test
+    void keepsTheErrorHandlerWhenWritingFails() {
+        final Consumer<Throwable> errorHandler = t -> {
+        };
+        RxJavaPlugins.setErrorHandler( errorHandler );
+
+        runUntilWritingFails();
+
+        assertSame( errorHandler, RxJavaPlugins.getErrorHandler() );
+    }
+
+    private static void runUntilWritingFails() {
+        assertTimeoutPreemptively( TIMEOUT, () -> {
+            final Config config = newConfig( new SlowCryptosystem(), 2 );
+            final ExecutionEngine executionEngine = ExecutionEngine.create( config.executionBackend(), 2 );
+            try {
+                assertThrows(
+                    IOException.class,
+                    () -> run( config, executionEngine, new ZeroInputStream(), new FullOutputStream() )
+                );
+            }
+            finally {
+                executionEngine.close();
+            }
+        } );
+    }
+
+    private static void run(
+        @Nonnull final Config config, @Nonnull final ExecutionEngine executionEngine,
+        @Nonnull final InputStream inputStream, @Nonnull final OutputStream outputStream
+    ) throws IOException, ValidationException {
+        final CryptoMetrics metrics = new CryptoMetrics( config );
+        final ChunkWriter chunkWriter = new ChunkWriter( config, outputStream, metrics );
+        new RxChunkPipeline( config, executionEngine, Main.newChunkBufferPool( config ), metrics )
+            .run( new ChunkReader( config, inputStream, metrics ), chunkWriter );
+        chunkWriter.finish();
+    }
+
+    @Nonnull
+    private static Config newConfig( @Nonnull final Cryptosystem cryptosystem, int threadCount ) {
+        return new Config(
+            Main.Action.ENCRYPT, "NOOP", cryptosystem, cryptosystem.getChunkSizeEncrypt(), threadCount,
+            ExecutionEngine.Backend.PLATFORM, false, false, 0, false, null, null, null,
+            true, false, false, false, false, false, false
+        );
+    }
+
+
+    /**
+     * Copies each chunk after a pause, so chunks are still in flight when the
+     * first output fails to be written.
+     */
+    private static final class SlowCryptosystem extends CryptosystemBase {
+
+        private static final long PAUSE_MILLIS = 100;
+
+        private SlowCryptosystem() {
+            super( 64 * 1024, 64 * 1024 );
+        }
+
+        @Override
+        public void init( boolean isBaseNEncode, boolean isBaseNDecode, int baseN ) {
+            // Do nothing.
+        }
+
+        @Nonnull
+        @Override
+        public byte[] encrypt( @Nonnull final byte[] message ) throws IOException {
+            try {
+                Thread.sleep( PAUSE_MILLIS );
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+
+                throw new IOException( "Interrupted encrypting a chunk.", e );
+            }
+
+            return message.clone();
+        }
+
+        @Nonnull
+        @Override
+        public byte[] decrypt( @Nonnull final byte[] bytes ) throws IOException {
+            return encrypt( bytes );
+        }
+
+    }
+
+
+    private static final class ZeroInputStream extends InputStream {
+
+        @Override
+        public int read() {
+            return 0;
+        }
+
+        @Override
+        public int read( @Nonnull final byte[] bytes, int offset, int length ) {
+            Arrays.fill( bytes, offset, offset + length, (byte) 0 );
+
+            return length;
+        }
+
+    }
+
+
+    private static final class FullOutputStream extends OutputStream {
+
+        @Override
+        public void write( int b ) throws IOException {
+            throw new IOException( "No space left on device" );
+        }
+
+        @Override
+        public void write( @Nonnull final byte[] bytes, int offset, int length ) throws IOException {
+            throw new IOException( "No space left on device" );
+        }
+
+    }
+
+}
@@ -2,6 +2,8 @@ package com.tiffanytimbric.crypto.noop;
 
 import com.tiffanytimbric.crypto.api.CryptosystemBase;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
 import javax.annotation.Nonnull;
 
 
@@ -24,12 +26,56 @@ public final class NoopCryptosystem extends CryptosystemBase {
 
     @Nonnull
     public byte[] encrypt( @Nonnull final byte[] message ) {
-        return message;
+        return message.clone();
     }
 
     @Nonnull
     public byte[] decrypt( @Nonnull final byte[] bytes ) {
-        return bytes;
+        return bytes.clone();
+    }
+
+    @Override
+    public boolean supportsInPlace() {
+        return true;
+    }
+
+    @Override
+    public void encryptInPlace( @Nonnull final byte[] buf, int off, int len ) {
+        Objects.checkFromIndexSize( off, len, buf.length );
+    }
+
+    @Override
+    public void decryptInPlace( @Nonnull final byte[] buf, int off, int len ) {
+        Objects.checkFromIndexSize( off, len, buf.length );
+    }
+
+    @Override
+    public int encrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) {
+        return copy( src, dst );
+    }
+
+    @Override
+    public int decrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) {
+        return copy( src, dst );
+    }
+
+    @Override
+    public boolean isLengthPreserving() {
+        return true;
+    }
+
+    private static int copy( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) {
+        final int length = src.remaining();
+        if ( src == dst ) {
+            src.position( src.limit() );
+
+            return length;
+        }
+
+        validateOutputCapacity( length, dst );
+        dst.put( src );
+
+        return length;
     }
 
 }
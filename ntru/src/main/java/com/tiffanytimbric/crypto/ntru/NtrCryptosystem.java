@@ -3,20 +3,24 @@ package com.tiffanytimbric.crypto.ntru;
 import com.tiffanytimbric.crypto.api.CryptosystemBase;
 import net.sf.ntru.encrypt.EncryptionKeyPair;
 import net.sf.ntru.encrypt.EncryptionParameters;
-import net.sf.ntru.encrypt.EncryptionPrivateKey;
 import net.sf.ntru.encrypt.EncryptionPublicKey;
 import net.sf.ntru.encrypt.NtruEncrypt;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import javax.annotation.Nonnull;
 
 
 /**
  * This class implements NTRU encryption/decryption.  It store its NTRU
  * encryption parameters and keys in the "~/.ntrutil" folder.
+ * <p>
+ * The parameters and key pair get loaded once per key store folder and
+ * shared, through {@link NtruKeyMaterialCache}, by every instance in the
+ * process, while each encryption/decryption borrows an NTRU engine of its
+ * own from a pool.  They get loaded on first use unless warm-up is requested
+ * at construction.
  */
 public final class NtrCryptosystem extends CryptosystemBase {
 
@@ -26,18 +30,43 @@ public final class NtrCryptosystem extends CryptosystemBase {
     public static final int BASE32_CHUNK_SIZE_DECRYPT = 968;
     public static final int BASE64_CHUNK_SIZE_DECRYPT = 808;
     private static final String USER_STORE_FOLDER = System.getenv( "HOME" ) + "/.ntrutil";
-    private static final String PRIVATE_KEY_FILENAME = USER_STORE_FOLDER + "/encryption_private_key";
-    private static final String PUBLIC_KEY_FILENAME = USER_STORE_FOLDER + "/encryption_public_key";
-    private static final String ENCRYPTION_PARAMETERS_FILENAME = USER_STORE_FOLDER + "/encryption_parameters";
-    private volatile NtruEncrypt ntru = null;
-    private volatile EncryptionParameters encryptionParameters = null;
-    private volatile EncryptionKeyPair keyPair = null;
+    private static final EncryptionParameters DEFAULT_ENCRYPTION_PARAMETERS = EncryptionParameters.APR2011_439_FAST;
+    private final String storeFolder;
+    private volatile NtruKeyMaterial keyMaterial = null;
 
 
     public NtrCryptosystem() {
+        this( USER_STORE_FOLDER, false );
+    }
+
+    /**
+     * @param storeFolder the folder to load the parameters and keys from, or
+     *                    to save them to when absent.
+     * @param warmUp      whether to load the parameters and keys now rather
+     *                    than on first use.
+     */
+    public NtrCryptosystem( @Nonnull final String storeFolder, boolean warmUp ) {
         super( DEFAULT_CHUNK_SIZE_ENCRYPT, DEFAULT_CHUNK_SIZE_DECRYPT );
+        this.storeFolder = storeFolder;
+
+        if ( warmUp ) {
+            try {
+                warmUp();
+            }
+            catch ( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
     }
 
+    /**
+     * Loads the parameters and keys now so the first chunk does not wait on
+     * them.
+     */
+    @Override
+    public void warmUp() throws IOException {
+        getKeyMaterial();
+    }
 
     @Override
     public void init( boolean isBaseNEncode, boolean isBaseNDecode, int baseN ) {
@@ -58,113 +87,96 @@ public final class NtrCryptosystem extends CryptosystemBase {
 
     @Nonnull
     public byte[] encrypt( @Nonnull final byte[] message ) throws IOException {
-        return getNTRU().encrypt( message, getKeyPair().getPublic() );
+        final NtruKeyMaterial keyMaterial = getKeyMaterial();
+        final NtruEncrypt ntru = keyMaterial.acquireNTRU();
+        try {
+            return ntru.encrypt( message, keyMaterial.getKeyPair().getPublic() );
+        }
+        finally {
+            keyMaterial.releaseNTRU( ntru );
+        }
     }
 
     @Nonnull
     public byte[] decrypt( @Nonnull final byte[] bytes ) throws IOException {
-        return getNTRU().decrypt( bytes, getKeyPair() );
-    }
-
-
-    @Nonnull
-    private synchronized NtruEncrypt getNTRU() throws IOException {
-        if ( ntru == null ) {
-            loadNTRU();
+        final NtruKeyMaterial keyMaterial = getKeyMaterial();
+        final NtruEncrypt ntru = keyMaterial.acquireNTRU();
+        try {
+            return ntru.decrypt( bytes, keyMaterial.getKeyPair() );
         }
-
-        return ntru;
-    }
-
-    @Nonnull
-    private synchronized EncryptionKeyPair getKeyPair() throws IOException {
-        if ( keyPair == null ) {
-            loadKeyPair();
+        finally {
+            keyMaterial.releaseNTRU( ntru );
         }
-
-        return keyPair;
     }
 
+    /**
+     * Looks the key material up, and borrows an NTRU engine, once for the
+     * whole batch.
+     */
     @Nonnull
-    private synchronized EncryptionParameters getEncryptionParameters() throws IOException {
-        if ( encryptionParameters == null ) {
-            loadEncryptionParameters();
-        }
+    @Override
+    public int[] encryptBatch( @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst ) throws IOException {
+        final NtruKeyMaterial keyMaterial = getKeyMaterial();
+        final NtruEncrypt ntru = keyMaterial.acquireNTRU();
+        final EncryptionPublicKey publicKey = keyMaterial.getKeyPair().getPublic();
+        try {
+            final int[] lengths = new int[srcs.length];
+            for ( int i = 0; i < srcs.length; i++ ) {
+                lengths[i] = putOutput( ntru.encrypt( getRemaining( srcs[i] ), publicKey ), srcs[i], dst );
+            }
 
-        return encryptionParameters;
+            return lengths;
+        }
+        finally {
+            keyMaterial.releaseNTRU( ntru );
+        }
     }
 
-    private synchronized void loadEncryptionParameters() throws IOException {
-        final File file = new File( ENCRYPTION_PARAMETERS_FILENAME );
-        if ( file.isFile() && file.canRead() ) {
-            try ( final FileInputStream inputStream = new FileInputStream( file ) ) {
-                encryptionParameters = new EncryptionParameters( inputStream );
+    /**
+     * Looks the key material up, and borrows an NTRU engine, once for the
+     * whole batch.
+     */
+    @Nonnull
+    @Override
+    public int[] decryptBatch( @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst ) throws IOException {
+        final NtruKeyMaterial keyMaterial = getKeyMaterial();
+        final NtruEncrypt ntru = keyMaterial.acquireNTRU();
+        final EncryptionKeyPair keyPair = keyMaterial.getKeyPair();
+        try {
+            final int[] lengths = new int[srcs.length];
+            for ( int i = 0; i < srcs.length; i++ ) {
+                lengths[i] = putOutput( ntru.decrypt( getRemaining( srcs[i] ), keyPair ), srcs[i], dst );
             }
+
+            return lengths;
         }
-        else {
-            encryptionParameters = EncryptionParameters.APR2011_439_FAST;
+        finally {
+            keyMaterial.releaseNTRU( ntru );
+        }
+    }
 
-            new File( USER_STORE_FOLDER ).mkdirs();
 
-            try ( final FileOutputStream outputStream = new FileOutputStream( ENCRYPTION_PARAMETERS_FILENAME ) ) {
-                encryptionParameters.writeTo( outputStream );
-            }
+    @Nonnull
+    private NtruKeyMaterial getKeyMaterial() throws IOException {
+        final NtruKeyMaterial loadedKeyMaterial = keyMaterial;
+        if ( loadedKeyMaterial != null ) {
+            return loadedKeyMaterial;
         }
 
+        final NtruKeyMaterial cachedKeyMaterial = NtruKeyMaterialCache.get(
+            storeFolder, DEFAULT_ENCRYPTION_PARAMETERS
+        );
+        final EncryptionParameters encryptionParameters = cachedKeyMaterial.getEncryptionParameters();
         if ( chunkSizeEncrypt > encryptionParameters.getMaxMessageLength() ) {
             throw new RuntimeException( String.format(
                 "Unsupported message length.  Message Length: %d, Supported Max Message Length: %d",
                 chunkSizeEncrypt, encryptionParameters.getMaxMessageLength()
             ) );
         }
-    }
-
-    private synchronized void loadNTRU() throws IOException {
-        ntru = new NtruEncrypt( getEncryptionParameters() );
-    }
-
-    private synchronized void loadKeyPair() throws IOException {
-        File privateKeyFile = new File( PRIVATE_KEY_FILENAME );
-        File publicKeyFile = new File( PUBLIC_KEY_FILENAME );
 
-        if ( privateKeyFile.isFile() && privateKeyFile.canRead()
-            && publicKeyFile.isFile() && publicKeyFile.canRead() ) {
-            keyPair = new EncryptionKeyPair(
-                loadEncryptionPrivateKey( privateKeyFile ),
-                loadEncryptionPublicKey( publicKeyFile )
-            );
-        }
-        else {
-            keyPair = getNTRU().generateKeyPair();
+        keyMaterial = cachedKeyMaterial;
 
-            new File( USER_STORE_FOLDER ).mkdirs();
-
-            try ( final FileOutputStream privKeyOutputStream = new FileOutputStream( PRIVATE_KEY_FILENAME ) ) {
-                keyPair.getPrivate().writeTo( privKeyOutputStream );
-                privKeyOutputStream.flush();
-            }
-            try ( final FileOutputStream pubKeyOutputStream = new FileOutputStream( PUBLIC_KEY_FILENAME ) ) {
-                keyPair.getPublic().writeTo( pubKeyOutputStream );
-                pubKeyOutputStream.flush();
-            }
-        }
+        return cachedKeyMaterial;
     }
 
-    @Nonnull
-    private EncryptionPublicKey loadEncryptionPublicKey(
-        @Nonnull final File publicKeyFile
-    ) throws IOException {
-        try ( final FileInputStream pubKeyInputStream = new FileInputStream( publicKeyFile ) ) {
-            return new EncryptionPublicKey( pubKeyInputStream );
-        }
-    }
-
-    @Nonnull
-    private EncryptionPrivateKey loadEncryptionPrivateKey(
-        @Nonnull final File privateKeyFile
-    ) throws IOException {
-        try ( final FileInputStream privKeyInputStream = new FileInputStream( privateKeyFile ) ) {
-            return new EncryptionPrivateKey( privKeyInputStream );
-        }
-    }
 }
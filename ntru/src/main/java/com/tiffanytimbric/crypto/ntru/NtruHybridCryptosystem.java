@@ -0,0 +1,232 @@
+package com.tiffanytimbric.crypto.ntru;
+
+import com.tiffanytimbric.crypto.api.CryptosystemBase;
+import com.tiffanytimbric.crypto.api.SessionCryptosystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+
+/**
+ * This class implements hybrid NTRU/AES encryption/decryption.  Each stream
+ * gets a random AES-256 session key which NTRU encrypts, once, into the
+ * stream header.  The chunks themselves get encrypted with AES-GCM under the
+ * session key, each one prefixed by its random nonce and suffixed by its
+ * authentication tag.  Each chunk's index within the stream, and whether it
+ * is the last chunk, get authenticated as additional data, so decryption
+ * fails for chunks which have been reordered, dropped, duplicated or cut off
+ * the end of the stream.
+ * <p>
+ * Compared with {@link NtrCryptosystem} this performs one public key
+ * operation per stream rather than per 64 bytes, and grows each chunk by
+ * {@link #CHUNK_OVERHEAD} bytes rather than roughly tenfold.  The NTRU keys
+ * get shared with {@link NtrCryptosystem}, through the "~/.ntrutil" folder.
+ */
+public final class NtruHybridCryptosystem extends CryptosystemBase implements SessionCryptosystem {
+
+    public static final int NONCE_LENGTH = 12;
+    public static final int TAG_LENGTH = 16;
+    public static final int CHUNK_OVERHEAD = NONCE_LENGTH + TAG_LENGTH;
+    /**
+     * Leaves the encrypted chunk length one more than a multiple of three, so
+     * its Base64 encoding ends with the "==" chunk delimiter.
+     */
+    public static final int DEFAULT_CHUNK_SIZE_ENCRYPT = 65532;
+    public static final int DEFAULT_CHUNK_SIZE_DECRYPT = DEFAULT_CHUNK_SIZE_ENCRYPT + CHUNK_OVERHEAD;
+    private static final int SESSION_KEY_LENGTH = 32;
+    private static final int AAD_LENGTH = Long.BYTES + 1;
+    private static final String KEY_ALGORITHM = "AES";
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial( () -> {
+        try {
+            return Cipher.getInstance( CIPHER_TRANSFORMATION );
+        }
+        catch ( NoSuchAlgorithmException | NoSuchPaddingException e ) {
+            throw new IllegalStateException( e );
+        }
+    } );
+    private final NtrCryptosystem keyEncapsulation;
+    private volatile SecretKey sessionKey = null;
+
+
+    public NtruHybridCryptosystem() {
+        this( new NtrCryptosystem() );
+    }
+
+    /**
+     * @param keyEncapsulation the NTRU cryptosystem used to encrypt and
+     *                         decrypt the session key.
+     */
+    public NtruHybridCryptosystem( @Nonnull final NtrCryptosystem keyEncapsulation ) {
+        super( DEFAULT_CHUNK_SIZE_ENCRYPT, DEFAULT_CHUNK_SIZE_DECRYPT );
+        this.keyEncapsulation = keyEncapsulation;
+    }
+
+    /**
+     * Loads the NTRU parameters and keys the session keys get wrapped with.
+     */
+    @Override
+    public void warmUp() throws IOException {
+        keyEncapsulation.warmUp();
+    }
+
+    @Override
+    public void init( boolean isBaseNEncode, boolean isBaseNDecode, int baseN ) {
+        // Do nothing.
+    }
+
+    /**
+     * Keeps the decryption chunk size in step, since each encrypted chunk is
+     * exactly {@link #CHUNK_OVERHEAD} bytes longer than its plain text.
+     */
+    @Override
+    public void setChunkSizeEncrypt( int chunkSizeEncrypt ) {
+        super.setChunkSizeEncrypt( chunkSizeEncrypt );
+        super.setChunkSizeDecrypt( chunkSizeEncrypt + CHUNK_OVERHEAD );
+    }
+
+    @Override
+    public void setChunkSizeDecrypt( int chunkSizeDecrypt ) {
+        super.setChunkSizeDecrypt( chunkSizeDecrypt );
+        super.setChunkSizeEncrypt( chunkSizeDecrypt - CHUNK_OVERHEAD );
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return NtrCryptosystem.DEFAULT_CHUNK_SIZE_DECRYPT;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] beginEncryptSession() throws IOException {
+        final byte[] sessionKeyBytes = new byte[SESSION_KEY_LENGTH];
+        SECURE_RANDOM.nextBytes( sessionKeyBytes );
+        sessionKey = new SecretKeySpec( sessionKeyBytes, KEY_ALGORITHM );
+
+        return keyEncapsulation.encrypt( sessionKeyBytes );
+    }
+
+    @Override
+    public void beginDecryptSession( @Nonnull final byte[] header ) throws IOException {
+        final byte[] sessionKeyBytes = keyEncapsulation.decrypt( header );
+        if ( sessionKeyBytes.length != SESSION_KEY_LENGTH ) {
+            throw new IOException( String.format(
+                "Invalid session header.  Session Key Length: %d, Expected Session Key Length: %d",
+                sessionKeyBytes.length, SESSION_KEY_LENGTH
+            ) );
+        }
+
+        sessionKey = new SecretKeySpec( sessionKeyBytes, KEY_ALGORITHM );
+    }
+
+    /**
+     * Encrypts the message as a stream of one chunk.
+     */
+    @Nonnull
+    public byte[] encrypt( @Nonnull final byte[] message ) throws IOException {
+        return encrypt( message, 0, true );
+    }
+
+    /**
+     * Decrypts the bytes as a stream of one chunk.
+     */
+    @Nonnull
+    public byte[] decrypt( @Nonnull final byte[] bytes ) throws IOException {
+        return decrypt( bytes, 0, true );
+    }
+
+    @Nonnull
+    @Override
+    public byte[] encrypt( @Nonnull final byte[] message, long chunkIndex, boolean lastChunk ) throws IOException {
+        final byte[] nonce = new byte[NONCE_LENGTH];
+        SECURE_RANDOM.nextBytes( nonce );
+
+        try {
+            final Cipher cipher = CIPHER.get();
+            cipher.init( Cipher.ENCRYPT_MODE, getSessionKey(), new GCMParameterSpec( TAG_LENGTH * 8, nonce ) );
+            cipher.updateAAD( getAad( chunkIndex, lastChunk ) );
+
+            final byte[] cipherText = new byte[NONCE_LENGTH + cipher.getOutputSize( message.length )];
+            System.arraycopy( nonce, 0, cipherText, 0, NONCE_LENGTH );
+            final int length = cipher.doFinal( message, 0, message.length, cipherText, NONCE_LENGTH );
+
+            return length + NONCE_LENGTH == cipherText.length
+                ? cipherText : Arrays.copyOf( cipherText, length + NONCE_LENGTH );
+        }
+        catch ( GeneralSecurityException e ) {
+            throw new IOException( e );
+        }
+    }
+
+    @Nonnull
+    @Override
+    public byte[] decrypt( @Nonnull final byte[] bytes, long chunkIndex, boolean lastChunk ) throws IOException {
+        if ( bytes.length < CHUNK_OVERHEAD ) {
+            throw new IOException( String.format(
+                "Invalid encrypted chunk.  Chunk Length: %d, Min Chunk Length: %d", bytes.length, CHUNK_OVERHEAD
+            ) );
+        }
+
+        try {
+            final Cipher cipher = CIPHER.get();
+            cipher.init(
+                Cipher.DECRYPT_MODE, getSessionKey(),
+                new GCMParameterSpec( TAG_LENGTH * 8, bytes, 0, NONCE_LENGTH )
+            );
+            cipher.updateAAD( getAad( chunkIndex, lastChunk ) );
+
+            return cipher.doFinal( bytes, NONCE_LENGTH, bytes.length - NONCE_LENGTH );
+        }
+        catch ( AEADBadTagException e ) {
+            throw new IOException( String.format(
+                "Invalid encrypted chunk, it was altered, moved or cut short.  Chunk Index: %d, Last Chunk: %b",
+                chunkIndex, lastChunk
+            ), e );
+        }
+        catch ( GeneralSecurityException e ) {
+            throw new IOException( e );
+        }
+    }
+
+    /**
+     * @return the chunk's position, as authenticated additional data.
+     */
+    @Nonnull
+    private static byte[] getAad( long chunkIndex, boolean lastChunk ) {
+        if ( chunkIndex < 0 ) {
+            throw new IllegalArgumentException( String.format(
+                "Invalid chunk index.  Chunk Index: %d", chunkIndex
+            ) );
+        }
+
+        return ByteBuffer.allocate( AAD_LENGTH )
+            .putLong( chunkIndex )
+            .put( (byte) (lastChunk ? 1 : 0) )
+            .array();
+    }
+
+    @Nonnull
+    private SecretKey getSessionKey() {
+        final SecretKey key = sessionKey;
+        if ( key == null ) {
+            throw new IllegalStateException(
+                "No session has been started.  A session must be started before encrypting or decrypting."
+            );
+        }
+
+        return key;
+    }
+
+}
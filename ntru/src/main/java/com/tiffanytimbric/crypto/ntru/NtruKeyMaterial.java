@@ -0,0 +1,164 @@
+package com.tiffanytimbric.crypto.ntru;
+
+import net.sf.ntru.encrypt.EncryptionKeyPair;
+import net.sf.ntru.encrypt.EncryptionParameters;
+import net.sf.ntru.encrypt.EncryptionPrivateKey;
+import net.sf.ntru.encrypt.EncryptionPublicKey;
+import net.sf.ntru.encrypt.NtruEncrypt;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class holds the NTRU encryption parameters and key pair loaded from one
+ * key store folder.  Instances are immutable once loaded, so they may be
+ * shared by every cryptosystem and thread using that folder.  NTRU engines
+ * get borrowed from a bounded pool, one per encryption or decryption (or
+ * batch), so parallel workers never contend on a shared one.  A pool rather
+ * than a thread local keeps engines reused on virtual threads, which get
+ * created per task and would otherwise each build an engine of their own.
+ */
+final class NtruKeyMaterial {
+
+    private static final String PRIVATE_KEY_FILENAME = "encryption_private_key";
+    private static final String PUBLIC_KEY_FILENAME = "encryption_public_key";
+    private static final String ENCRYPTION_PARAMETERS_FILENAME = "encryption_parameters";
+    private static final int MAX_POOLED_ENGINES = Math.max( 16, 2 * Runtime.getRuntime().availableProcessors() );
+
+    private final EncryptionParameters encryptionParameters;
+    private final BlockingQueue<NtruEncrypt> engines = new ArrayBlockingQueue<>( MAX_POOLED_ENGINES );
+    private final EncryptionKeyPair keyPair;
+
+
+    private NtruKeyMaterial(
+        @Nonnull final EncryptionParameters encryptionParameters,
+        @Nonnull final EncryptionKeyPair keyPair
+    ) {
+        this.encryptionParameters = encryptionParameters;
+        this.keyPair = keyPair;
+    }
+
+    /**
+     * Loads the parameters and key pair from the store folder, first
+     * generating and saving them when absent.
+     *
+     * @param defaultParameters the parameters to use and save when the store
+     *                          folder does not yet contain any.
+     */
+    @Nonnull
+    static NtruKeyMaterial load(
+        @Nonnull final String storeFolder, @Nonnull final EncryptionParameters defaultParameters
+    ) throws IOException {
+        final EncryptionParameters encryptionParameters = loadEncryptionParameters(
+            storeFolder, defaultParameters
+        );
+        final NtruEncrypt ntru = new NtruEncrypt( encryptionParameters );
+
+        return new NtruKeyMaterial( encryptionParameters, loadKeyPair( storeFolder, ntru ) );
+    }
+
+    @Nonnull
+    EncryptionParameters getEncryptionParameters() {
+        return encryptionParameters;
+    }
+
+    /**
+     * Borrows an NTRU engine for the calling thread's exclusive use, creating
+     * one when none is idle.  Hand it back with {@link #releaseNTRU}.
+     */
+    @Nonnull
+    NtruEncrypt acquireNTRU() {
+        final NtruEncrypt ntru = engines.poll();
+
+        return ntru != null ? ntru : new NtruEncrypt( encryptionParameters );
+    }
+
+    /**
+     * Returns a borrowed engine to the pool, or leaves it to the garbage
+     * collector when the pool is full.
+     */
+    void releaseNTRU( @Nonnull final NtruEncrypt ntru ) {
+        engines.offer( ntru );
+    }
+
+    @Nonnull
+    EncryptionKeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    @Nonnull
+    private static EncryptionParameters loadEncryptionParameters(
+        @Nonnull final String storeFolder, @Nonnull final EncryptionParameters defaultParameters
+    ) throws IOException {
+        final File file = new File( storeFolder, ENCRYPTION_PARAMETERS_FILENAME );
+        if ( file.isFile() && file.canRead() ) {
+            try ( final FileInputStream inputStream = new FileInputStream( file ) ) {
+                return new EncryptionParameters( inputStream );
+            }
+        }
+
+        new File( storeFolder ).mkdirs();
+
+        try ( final FileOutputStream outputStream = new FileOutputStream( file ) ) {
+            defaultParameters.writeTo( outputStream );
+        }
+
+        return defaultParameters;
+    }
+
+    @Nonnull
+    private static EncryptionKeyPair loadKeyPair(
+        @Nonnull final String storeFolder, @Nonnull final NtruEncrypt ntru
+    ) throws IOException {
+        final File privateKeyFile = new File( storeFolder, PRIVATE_KEY_FILENAME );
+        final File publicKeyFile = new File( storeFolder, PUBLIC_KEY_FILENAME );
+
+        if ( privateKeyFile.isFile() && privateKeyFile.canRead()
+            && publicKeyFile.isFile() && publicKeyFile.canRead() ) {
+            return new EncryptionKeyPair(
+                loadEncryptionPrivateKey( privateKeyFile ),
+                loadEncryptionPublicKey( publicKeyFile )
+            );
+        }
+
+        final EncryptionKeyPair keyPair = ntru.generateKeyPair();
+
+        new File( storeFolder ).mkdirs();
+
+        try ( final FileOutputStream privKeyOutputStream = new FileOutputStream( privateKeyFile ) ) {
+            keyPair.getPrivate().writeTo( privKeyOutputStream );
+            privKeyOutputStream.flush();
+        }
+        try ( final FileOutputStream pubKeyOutputStream = new FileOutputStream( publicKeyFile ) ) {
+            keyPair.getPublic().writeTo( pubKeyOutputStream );
+            pubKeyOutputStream.flush();
+        }
+
+        return keyPair;
+    }
+
+    @Nonnull
+    private static EncryptionPublicKey loadEncryptionPublicKey(
+        @Nonnull final File publicKeyFile
+    ) throws IOException {
+        try ( final FileInputStream pubKeyInputStream = new FileInputStream( publicKeyFile ) ) {
+            return new EncryptionPublicKey( pubKeyInputStream );
+        }
+    }
+
+    @Nonnull
+    private static EncryptionPrivateKey loadEncryptionPrivateKey(
+        @Nonnull final File privateKeyFile
+    ) throws IOException {
+        try ( final FileInputStream privKeyInputStream = new FileInputStream( privateKeyFile ) ) {
+            return new EncryptionPrivateKey( privKeyInputStream );
+        }
+    }
+
+}
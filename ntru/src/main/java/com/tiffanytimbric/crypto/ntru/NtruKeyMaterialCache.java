@@ -0,0 +1,61 @@
+package com.tiffanytimbric.crypto.ntru;
+
+import net.sf.ntru.encrypt.EncryptionParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class caches the NTRU key material of each key store folder and
+ * parameter set for the life of the process.  The first lookup of an entry
+ * loads it from disk, with concurrent first lookups waiting on that one load.
+ * Every later lookup is a lock-free map read.
+ */
+final class NtruKeyMaterialCache {
+
+    private static final Map<CacheKey, NtruKeyMaterial> CACHE = new ConcurrentHashMap<>();
+
+
+    private NtruKeyMaterialCache() {
+    }
+
+    @Nonnull
+    static NtruKeyMaterial get(
+        @Nonnull final String storeFolder, @Nonnull final EncryptionParameters defaultParameters
+    ) throws IOException {
+        final CacheKey cacheKey = new CacheKey(
+            new File( storeFolder ).getAbsoluteFile().toPath().normalize().toString(), defaultParameters
+        );
+        final NtruKeyMaterial keyMaterial = CACHE.get( cacheKey );
+        if ( keyMaterial != null ) {
+            return keyMaterial;
+        }
+
+        try {
+            return CACHE.computeIfAbsent( cacheKey, key -> {
+                try {
+                    return NtruKeyMaterial.load( key.storeFolder(), key.defaultParameters() );
+                }
+                catch ( IOException e ) {
+                    throw new UncheckedIOException( e );
+                }
+            } );
+        }
+        catch ( UncheckedIOException e ) {
+            throw e.getCause();
+        }
+    }
+
+
+    private record CacheKey(
+        @Nonnull String storeFolder, @Nonnull EncryptionParameters defaultParameters
+    ) {
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.tiffanytimbric.crypto.ntru;
+
+import com.tiffanytimbric.crypto.api.CryptoInputStream;
+import com.tiffanytimbric.crypto.api.CryptoOperation;
+import com.tiffanytimbric.crypto.api.CryptoOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class NtruHybridCryptosystemTest {
+
+    private static final int CHUNK_SIZE = 64;
+
+    @TempDir
+    Path storeFolder;
+
+    private NtrCryptosystem keyEncapsulation;
+    private byte[] message;
+
+
+    @BeforeEach
+    void setUp() {
+        keyEncapsulation = new NtrCryptosystem( storeFolder.toString(), true );
+        message = new byte[CHUNK_SIZE * 3 + 5];
+        new Random( 42 ).nextBytes( message );
+    }
+
+    @Test
+    void roundTripsChunksInOrder() throws IOException {
+        final NtruHybridCryptosystem encrypter = newCryptosystem();
+        final NtruHybridCryptosystem decrypter = newCryptosystem();
+        decrypter.beginDecryptSession( encrypter.beginEncryptSession() );
+
+        final byte[] first = encrypter.encrypt( message, 0, false );
+        final byte[] last = encrypter.encrypt( message, 1, true );
+
+        assertArrayEquals( message, decrypter.decrypt( first, 0, false ) );
+        assertArrayEquals( message, decrypter.decrypt( last, 1, true ) );
+    }
+
+    @Test
+    void rejectsReorderedChunk() throws IOException {
+        final NtruHybridCryptosystem encrypter = newCryptosystem();
+        final NtruHybridCryptosystem decrypter = newCryptosystem();
+        decrypter.beginDecryptSession( encrypter.beginEncryptSession() );
+
+        final byte[] first = encrypter.encrypt( message, 0, false );
+        final byte[] second = encrypter.encrypt( message, 1, false );
+
+        assertThrows( IOException.class, () -> decrypter.decrypt( second, 0, false ) );
+        assertThrows( IOException.class, () -> decrypter.decrypt( first, 1, false ) );
+    }
+
+    @Test
+    void rejectsChunkMovedToTheEnd() throws IOException {
+        final NtruHybridCryptosystem encrypter = newCryptosystem();
+        final NtruHybridCryptosystem decrypter = newCryptosystem();
+        decrypter.beginDecryptSession( encrypter.beginEncryptSession() );
+
+        final byte[] notLast = encrypter.encrypt( message, 1, false );
+        final byte[] last = encrypter.encrypt( message, 1, true );
+
+        assertThrows( IOException.class, () -> decrypter.decrypt( notLast, 1, true ) );
+        assertThrows( IOException.class, () -> decrypter.decrypt( last, 1, false ) );
+    }
+
+    @Test
+    void roundTripsStream() throws IOException {
+        final byte[] cipherText = encryptStream( message );
+
+        assertArrayEquals( message, decryptStream( cipherText ) );
+    }
+
+    @Test
+    void roundTripsEmptyStream() throws IOException {
+        final byte[] cipherText = encryptStream( new byte[0] );
+
+        assertArrayEquals( new byte[0], decryptStream( cipherText ) );
+    }
+
+    @Test
+    void rejectsStreamWithSwappedChunks() throws IOException {
+        final byte[] cipherText = encryptStream( message );
+        final int headerLength = newCryptosystem().getHeaderLength();
+        final int chunkLength = CHUNK_SIZE + NtruHybridCryptosystem.CHUNK_OVERHEAD;
+        final byte[] swapped = cipherText.clone();
+        System.arraycopy( cipherText, headerLength, swapped, headerLength + chunkLength, chunkLength );
+        System.arraycopy( cipherText, headerLength + chunkLength, swapped, headerLength, chunkLength );
+
+        assertThrows( IOException.class, () -> decryptStream( swapped ) );
+    }
+
+    @Test
+    void rejectsStreamCutAtAChunkBoundary() throws IOException {
+        final byte[] cipherText = encryptStream( message );
+        final int headerLength = newCryptosystem().getHeaderLength();
+        final int chunkLength = CHUNK_SIZE + NtruHybridCryptosystem.CHUNK_OVERHEAD;
+
+        for ( int chunkCount = 0; chunkCount < 4; chunkCount++ ) {
+            final byte[] truncated = Arrays.copyOf( cipherText, headerLength + chunkCount * chunkLength );
+            assertThrows( IOException.class, () -> decryptStream( truncated ) );
+        }
+    }
+
+    @Test
+    void rejectsStreamWithoutHeader() {
+        assertThrows( IOException.class, () -> decryptStream( new byte[0] ) );
+    }
+
+    @Nonnull
+    private NtruHybridCryptosystem newCryptosystem() {
+        final NtruHybridCryptosystem cryptosystem = new NtruHybridCryptosystem( keyEncapsulation );
+        cryptosystem.setChunkSizeEncrypt( CHUNK_SIZE );
+        cryptosystem.setChunkSizeDecrypt( CHUNK_SIZE + NtruHybridCryptosystem.CHUNK_OVERHEAD );
+
+        return cryptosystem;
+    }
+
+    @Nonnull
+    private byte[] encryptStream( @Nonnull final byte[] plainText ) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try ( final CryptoOutputStream cryptoOutputStream = new CryptoOutputStream(
+            byteArrayOutputStream, newCryptosystem(), CryptoOperation.ENCRYPT
+        ) ) {
+            cryptoOutputStream.write( plainText );
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Nonnull
+    private byte[] decryptStream( @Nonnull final byte[] cipherText ) throws IOException {
+        try ( final InputStream inputStream = new CryptoInputStream(
+            new ByteArrayInputStream( cipherText ), newCryptosystem(), CryptoOperation.DECRYPT
+        ) ) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements a key store holding the key in a heap array, which
+ * lets the vector kernel read it directly.
+ */
+final class HeapXorKeyStore implements XorKeyStore {
+
+    private final byte[] key;
+    private final XorKernel kernel;
+
+
+    HeapXorKeyStore( @Nonnull final byte[] key, @Nonnull final XorKernel kernel ) {
+        this.key = key;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public int size() {
+        return key.length;
+    }
+
+    @Override
+    public void xor( @Nonnull byte[] src, int srcOffset, @Nonnull byte[] dst, int dstOffset, int length ) {
+        kernel.xor( src, srcOffset, key, 0, dst, dstOffset, length );
+    }
+
+    @Override
+    public void xor( @Nonnull ByteBuffer src, int srcIndex, @Nonnull ByteBuffer dst, int dstIndex, int length ) {
+        kernel.xor( src, srcIndex, key, 0, dst, dstIndex, length );
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+
+/**
+ * This class implements a key store which expands a fixed size master key into
+ * one keystream for the whole stream: AES-256 in counter mode, under the
+ * master key, over a run of zeros.  Each message gets XORed with the
+ * keystream from its offset in the stream, so the counter is derived from the
+ * offset and no two chunks of a stream share key bytes.  Chunks still get
+ * encrypted out of order, and decrypted on their own by range reads, as the
+ * keystream at any offset can be generated on its own.
+ * <p>
+ * The keystream gets generated in blocks on a background thread, ahead of the
+ * highest offset asked for, into a ring of twice as many blocks as get
+ * generated ahead.  Each block submitted drops the one a ring length before
+ * it, so memory stays bounded however long the stream is.  A block which has
+ * already been dropped gets generated again when asked for.
+ */
+final class KeystreamXorKeyStore implements XorKeyStore {
+
+    static final int MASTER_KEY_SIZE = 32;
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int MAX_PREFETCH_BLOCKS = 256;
+
+    private static final int AES_BLOCK_SIZE = 16;
+    private static final String KEY_ALGORITHM = "AES";
+    private static final String CIPHER_TRANSFORMATION = "AES/CTR/NoPadding";
+
+    private final SecretKeySpec masterKey;
+    private final XorKernel kernel;
+    private final int prefetchBlocks;
+    private final Future<byte[]>[] ring;
+    private final ExecutorService generator = Executors.newSingleThreadExecutor( runnable -> {
+        final Thread thread = new Thread( runnable, "xor-keystream" );
+        thread.setDaemon( true );
+
+        return thread;
+    } );
+    private long nextBlockIndex = 0;
+    private Cipher cipher = null;
+    private byte[] zeros = null;
+
+
+    /**
+     * Starts generating the first prefetchLength bytes of the keystream in
+     * the background, and keeps that many bytes generated ahead of the
+     * highest offset asked for, up to {@link #MAX_PREFETCH_BLOCKS} blocks.
+     */
+    @SuppressWarnings( "unchecked" )
+    KeystreamXorKeyStore( @Nonnull final byte[] masterKey, long prefetchLength, @Nonnull final XorKernel kernel ) {
+        if ( masterKey.length != MASTER_KEY_SIZE ) {
+            throw new IllegalArgumentException( String.format(
+                "Unsupported master key size.  Master Key Size: %d, Supported Master Key Size: %d",
+                masterKey.length, MASTER_KEY_SIZE
+            ) );
+        }
+
+        this.masterKey = new SecretKeySpec( masterKey, KEY_ALGORITHM );
+        this.kernel = kernel;
+        this.prefetchBlocks = (int) Math.min( MAX_PREFETCH_BLOCKS, (prefetchLength + BLOCK_SIZE - 1) / BLOCK_SIZE + 1 );
+        this.ring = (Future<byte[]>[]) new Future<?>[2 * prefetchBlocks];
+        submitBlocks( 0 );
+    }
+
+    @Override
+    public int size() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void xor( @Nonnull byte[] src, int srcOffset, @Nonnull byte[] dst, int dstOffset, int length ) {
+        xor( src, srcOffset, dst, dstOffset, length, 0 );
+    }
+
+    @Override
+    public void xor( @Nonnull ByteBuffer src, int srcIndex, @Nonnull ByteBuffer dst, int dstIndex, int length ) {
+        xor( src, srcIndex, dst, dstIndex, length, 0 );
+    }
+
+    @Override
+    public void xor(
+        @Nonnull byte[] src, int srcOffset, @Nonnull byte[] dst, int dstOffset, int length, long streamOffset
+    ) {
+        int done = 0;
+        while ( done < length ) {
+            final long keyOffset = streamOffset + done;
+            final int blockOffset = (int) (keyOffset % BLOCK_SIZE);
+            final int blockLength = Math.min( BLOCK_SIZE - blockOffset, length - done );
+            kernel.xor(
+                src, srcOffset + done, getBlock( keyOffset / BLOCK_SIZE ), blockOffset, dst, dstOffset + done,
+                blockLength
+            );
+            done += blockLength;
+        }
+    }
+
+    @Override
+    public void xor(
+        @Nonnull ByteBuffer src, int srcIndex, @Nonnull ByteBuffer dst, int dstIndex, int length, long streamOffset
+    ) {
+        int done = 0;
+        while ( done < length ) {
+            final long keyOffset = streamOffset + done;
+            final int blockOffset = (int) (keyOffset % BLOCK_SIZE);
+            final int blockLength = Math.min( BLOCK_SIZE - blockOffset, length - done );
+            kernel.xor(
+                src, srcIndex + done, getBlock( keyOffset / BLOCK_SIZE ), blockOffset, dst, dstIndex + done,
+                blockLength
+            );
+            done += blockLength;
+        }
+    }
+
+    /**
+     * @return the number of key blocks the ring holds at most.
+     */
+    int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * @return the key block, waiting for it only when it has not been
+     * generated yet.
+     */
+    @Nonnull
+    private byte[] getBlock( long blockIndex ) {
+        try {
+            return submitBlocks( blockIndex ).get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException( String.format(
+                "Interrupted waiting for a key block.  Block Index: %d", blockIndex
+            ), e );
+        }
+        catch ( ExecutionException e ) {
+            throw new RuntimeException( String.format(
+                "Key block generation failed.  Block Index: %d", blockIndex
+            ), e.getCause() );
+        }
+    }
+
+    /**
+     * Submits the blocks up to prefetchBlocks past the given one which have
+     * not been submitted yet.  After a jump ahead, only the blocks from
+     * prefetchBlocks before it get submitted, for the chunks just behind it.
+     * The ring then holds every block from a ring length before the next
+     * block to submit.
+     *
+     * @return the key block, from the ring, or submitted on its own when it
+     * has already been dropped from the ring.
+     */
+    @Nonnull
+    private synchronized Future<byte[]> submitBlocks( long blockIndex ) {
+        if ( blockIndex < nextBlockIndex - ring.length ) {
+            return generator.submit( () -> generateBlock( blockIndex ) );
+        }
+
+        nextBlockIndex = Math.max( nextBlockIndex, blockIndex - prefetchBlocks + 1 );
+        for ( ; nextBlockIndex <= blockIndex + prefetchBlocks; nextBlockIndex++ ) {
+            final long index = nextBlockIndex;
+            ring[getSlot( index )] = generator.submit( () -> generateBlock( index ) );
+        }
+
+        return ring[getSlot( blockIndex )];
+    }
+
+    private int getSlot( long blockIndex ) {
+        return (int) (blockIndex % ring.length);
+    }
+
+    /**
+     * Runs on the generator thread only, which owns the cipher.  The counter
+     * starts at the first AES block of the key block.
+     */
+    @Nonnull
+    private byte[] generateBlock( long blockIndex ) throws GeneralSecurityException {
+        if ( cipher == null ) {
+            cipher = Cipher.getInstance( CIPHER_TRANSFORMATION );
+            zeros = new byte[BLOCK_SIZE];
+        }
+
+        final byte[] counter = ByteBuffer.allocate( AES_BLOCK_SIZE )
+            .putLong( AES_BLOCK_SIZE - Long.BYTES, blockIndex * (BLOCK_SIZE / AES_BLOCK_SIZE) )
+            .array();
+        cipher.init( Cipher.ENCRYPT_MODE, masterKey, new IvParameterSpec( counter ) );
+
+        return cipher.doFinal( zeros );
+    }
+
+}
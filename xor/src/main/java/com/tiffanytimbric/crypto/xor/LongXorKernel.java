@@ -0,0 +1,144 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements the XOR kernel eight bytes at a time by viewing the
+ * byte arrays as longs.  It is the fallback used when the vector API is not
+ * available.
+ */
+final class LongXorKernel implements XorKernel {
+
+    static final LongXorKernel INSTANCE = new LongXorKernel();
+
+    private static final VarHandle LONGS_LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(
+        long[].class, ByteOrder.LITTLE_ENDIAN
+    );
+    private static final VarHandle LONGS_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(
+        long[].class, ByteOrder.BIG_ENDIAN
+    );
+
+
+    private LongXorKernel() {
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "long (64 bits)";
+    }
+
+    @Override
+    public void xor(
+        @Nonnull byte[] src, int srcOffset,
+        @Nonnull byte[] key, int keyOffset,
+        @Nonnull byte[] dst, int dstOffset,
+        int length
+    ) {
+        int i = 0;
+        final int upperBound = length & ~(Long.BYTES - 1);
+        for ( ; i < upperBound; i += Long.BYTES ) {
+            LONGS_LITTLE_ENDIAN.set(
+                dst, dstOffset + i,
+                (long) LONGS_LITTLE_ENDIAN.get( src, srcOffset + i )
+                    ^ (long) LONGS_LITTLE_ENDIAN.get( key, keyOffset + i )
+            );
+        }
+        for ( ; i < length; i++ ) {
+            dst[dstOffset + i] = (byte) (src[srcOffset + i] ^ key[keyOffset + i]);
+        }
+    }
+
+    @Override
+    public void xor(
+        @Nonnull ByteBuffer src, int srcIndex,
+        @Nonnull byte[] key, int keyOffset,
+        @Nonnull ByteBuffer dst, int dstIndex,
+        int length
+    ) {
+        if ( src.hasArray() && dst.hasArray() && !dst.isReadOnly() ) {
+            xor(
+                src.array(), src.arrayOffset() + srcIndex, key, keyOffset,
+                dst.array(), dst.arrayOffset() + dstIndex, length
+            );
+
+            return;
+        }
+
+        int i = 0;
+        if ( src.order() == dst.order() ) {
+            final VarHandle keyLongs = ByteOrder.LITTLE_ENDIAN.equals( src.order() )
+                ? LONGS_LITTLE_ENDIAN : LONGS_BIG_ENDIAN;
+            final int upperBound = length & ~(Long.BYTES - 1);
+            for ( ; i < upperBound; i += Long.BYTES ) {
+                dst.putLong(
+                    dstIndex + i, src.getLong( srcIndex + i ) ^ (long) keyLongs.get( key, keyOffset + i )
+                );
+            }
+        }
+        for ( ; i < length; i++ ) {
+            dst.put( dstIndex + i, (byte) (src.get( srcIndex + i ) ^ key[keyOffset + i]) );
+        }
+    }
+
+    @Override
+    public void xor(
+        @Nonnull byte[] src, int srcOffset,
+        @Nonnull ByteBuffer key, int keyIndex,
+        @Nonnull byte[] dst, int dstOffset,
+        int length
+    ) {
+        if ( key.hasArray() ) {
+            xor( src, srcOffset, key.array(), key.arrayOffset() + keyIndex, dst, dstOffset, length );
+
+            return;
+        }
+
+        final VarHandle longs = ByteOrder.LITTLE_ENDIAN.equals( key.order() )
+            ? LONGS_LITTLE_ENDIAN : LONGS_BIG_ENDIAN;
+        int i = 0;
+        final int upperBound = length & ~(Long.BYTES - 1);
+        for ( ; i < upperBound; i += Long.BYTES ) {
+            longs.set(
+                dst, dstOffset + i, (long) longs.get( src, srcOffset + i ) ^ key.getLong( keyIndex + i )
+            );
+        }
+        for ( ; i < length; i++ ) {
+            dst[dstOffset + i] = (byte) (src[srcOffset + i] ^ key.get( keyIndex + i ));
+        }
+    }
+
+    @Override
+    public void xor(
+        @Nonnull ByteBuffer src, int srcIndex,
+        @Nonnull ByteBuffer key, int keyIndex,
+        @Nonnull ByteBuffer dst, int dstIndex,
+        int length
+    ) {
+        if ( src.hasArray() && dst.hasArray() && !dst.isReadOnly() ) {
+            xor(
+                src.array(), src.arrayOffset() + srcIndex, key, keyIndex,
+                dst.array(), dst.arrayOffset() + dstIndex, length
+            );
+
+            return;
+        }
+
+        int i = 0;
+        if ( src.order() == key.order() && dst.order() == key.order() ) {
+            final int upperBound = length & ~(Long.BYTES - 1);
+            for ( ; i < upperBound; i += Long.BYTES ) {
+                dst.putLong( dstIndex + i, src.getLong( srcIndex + i ) ^ key.getLong( keyIndex + i ) );
+            }
+        }
+        for ( ; i < length; i++ ) {
+            dst.put( dstIndex + i, (byte) (src.get( srcIndex + i ) ^ key.get( keyIndex + i )) );
+        }
+    }
+
+}
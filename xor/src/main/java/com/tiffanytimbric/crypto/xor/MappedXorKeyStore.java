@@ -0,0 +1,66 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements a key store which memory-maps the key file read-only
+ * and XORs straight against the mapped region.  The key never gets copied
+ * onto the heap, and its pages are shared, through the page cache, with every
+ * other process mapping the same key file.
+ */
+final class MappedXorKeyStore implements XorKeyStore {
+
+    private final MappedByteBuffer key;
+    private final XorKernel kernel;
+
+
+    private MappedXorKeyStore( @Nonnull final MappedByteBuffer key, @Nonnull final XorKernel kernel ) {
+        this.key = key;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Maps the first keySize bytes of the key file.  The mapping stays valid
+     * after the file channel gets closed.
+     */
+    @Nonnull
+    static MappedXorKeyStore open(
+        @Nonnull final Path keyFile, int keySize, @Nonnull final XorKernel kernel
+    ) throws IOException {
+        try ( final FileChannel fileChannel = FileChannel.open( keyFile, StandardOpenOption.READ ) ) {
+            if ( fileChannel.size() < keySize ) {
+                throw new IOException( String.format(
+                    "Key file too short.  Key File: \"%s\", Key File Size: %d, Key Size: %d",
+                    keyFile, fileChannel.size(), keySize
+                ) );
+            }
+
+            return new MappedXorKeyStore(
+                fileChannel.map( FileChannel.MapMode.READ_ONLY, 0, keySize ), kernel
+            );
+        }
+    }
+
+    @Override
+    public int size() {
+        return key.capacity();
+    }
+
+    @Override
+    public void xor( @Nonnull byte[] src, int srcOffset, @Nonnull byte[] dst, int dstOffset, int length ) {
+        kernel.xor( src, srcOffset, key, 0, dst, dstOffset, length );
+    }
+
+    @Override
+    public void xor( @Nonnull ByteBuffer src, int srcIndex, @Nonnull ByteBuffer dst, int dstIndex, int length ) {
+        kernel.xor( src, srcIndex, key, 0, dst, dstIndex, length );
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.tiffanytimbric.crypto.xor;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class implements the XOR kernel using the widest byte vectors the host
+ * supports.  It must only be loaded once the "jdk.incubator.vector" module is
+ * known to be present, see {@link XorKernels}.
+ */
+final class VectorXorKernel implements XorKernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return String.format( "vector (%d bits)", SPECIES.vectorBitSize() );
+    }
+
+    @Override
+    public void xor(
+        @Nonnull byte[] src, int srcOffset,
+        @Nonnull byte[] key, int keyOffset,
+        @Nonnull byte[] dst, int dstOffset,
+        int length
+    ) {
+        int i = 0;
+        final int upperBound = SPECIES.loopBound( length );
+        for ( ; i < upperBound; i += SPECIES.length() ) {
+            ByteVector.fromArray( SPECIES, src, srcOffset + i )
+                .lanewise( VectorOperators.XOR, ByteVector.fromArray( SPECIES, key, keyOffset + i ) )
+                .intoArray( dst, dstOffset + i );
+        }
+
+        LongXorKernel.INSTANCE.xor(
+            src, srcOffset + i, key, keyOffset + i, dst, dstOffset + i, length - i
+        );
+    }
+
+    /**
+     * Direct buffers, and keys held in them, get XORed a long at a time since
+     * the vector API's buffer accessors differ between JDK releases.
+     */
+    @Override
+    public void xor(
+        @Nonnull ByteBuffer src, int srcIndex,
+        @Nonnull byte[] key, int keyOffset,
+        @Nonnull ByteBuffer dst, int dstIndex,
+        int length
+    ) {
+        if ( src.hasArray() && dst.hasArray() && !dst.isReadOnly() ) {
+            xor(
+                src.array(), src.arrayOffset() + srcIndex, key, keyOffset,
+                dst.array(), dst.arrayOffset() + dstIndex, length
+            );
+
+            return;
+        }
+
+        LongXorKernel.INSTANCE.xor( src, srcIndex, key, keyOffset, dst, dstIndex, length );
+    }
+
+    @Override
+    public void xor(
+        @Nonnull byte[] src, int srcOffset,
+        @Nonnull ByteBuffer key, int keyIndex,
+        @Nonnull byte[] dst, int dstOffset,
+        int length
+    ) {
+        if ( key.hasArray() ) {
+            xor( src, srcOffset, key.array(), key.arrayOffset() + keyIndex, dst, dstOffset, length );
+
+            return;
+        }
+
+        LongXorKernel.INSTANCE.xor( src, srcOffset, key, keyIndex, dst, dstOffset, length );
+    }
+
+    @Override
+    public void xor(
+        @Nonnull ByteBuffer src, int srcIndex,
+        @Nonnull ByteBuffer key, int keyIndex,
+        @Nonnull ByteBuffer dst, int dstIndex,
+        int length
+    ) {
+        if ( key.hasArray() ) {
+            xor( src, srcIndex, key.array(), key.arrayOffset() + keyIndex, dst, dstIndex, length );
+
+            return;
+        }
+
+        LongXorKernel.INSTANCE.xor( src, srcIndex, key, keyIndex, dst, dstIndex, length );
+    }
+
+}
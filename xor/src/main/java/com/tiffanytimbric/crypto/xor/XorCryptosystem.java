@@ -1,12 +1,15 @@
 package com.tiffanytimbric.crypto.xor;
 
 import com.tiffanytimbric.crypto.api.CryptosystemBase;
+import com.tiffanytimbric.crypto.api.PositionalCryptosystem;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.SecureRandom;
+import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -14,102 +17,368 @@ import javax.annotation.Nullable;
 /**
  * This class implements XOR encryption/decryption.  It store its XOR
  * encryption parameters and keys in the "~/.xorutil" folder.
+ * <p>
+ * The XOR loop runs on the fastest {@link XorKernel} the JVM supports, which
+ * gets picked once at startup and is reported by {@link #getKernelName()}.
+ * <p>
+ * Keys of at least {@link #MAPPED_KEY_MIN_SIZE} bytes get memory-mapped rather
+ * than read onto the heap.  Setting the "crypto.xor.keystore" system property
+ * to "heap" or "mapped" overrides that choice.  Key files XOR every chunk
+ * with the same key bytes, so the chunk index gets ignored.  Setting the
+ * property to "keystream" replaces the per chunk size key files with one
+ * master key, which gets expanded into a keystream for the whole stream, so
+ * any chunk size works with it.  Chunk k then gets XORed with the keystream
+ * from byte k times the chunk size, so no two chunks share key bytes, and
+ * chunks longer than the chunk size get rejected.
+ * <p>
+ * Missing keys get generated on first use by {@link XorKeyGenerator}, which
+ * streams them to the key file from one generator per processor.
  */
-public final class XorCryptosystem extends CryptosystemBase {
+public final class XorCryptosystem extends CryptosystemBase implements PositionalCryptosystem {
 
     public static final int DEFAULT_CHUNK_SIZE_ENCRYPT = 65536;
 
     public static final int DEFAULT_CHUNK_SIZE_DECRYPT = 65536;
 
+    public static final int MAPPED_KEY_MIN_SIZE = 16 * 1024 * 1024;
+
+    static final String PN_KEY_STORE = "crypto.xor.keystore";
+
     private static final String USER_STORE_FOLDER = System.getenv( "HOME" ) + "/.xorutil";
     private static final String KEY_FILENAME = USER_STORE_FOLDER + "/encryption_key";
-    private volatile byte[] key = null;
+    private static final String MASTER_KEY_FILENAME = USER_STORE_FOLDER + "/encryption_master_key";
+    private static final XorKernel KERNEL = XorKernels.select();
+    private volatile XorKeyStore keyStore = null;
+    private volatile long keyGenerationNanos = 0;
 
 
     public XorCryptosystem() {
         super( DEFAULT_CHUNK_SIZE_ENCRYPT, DEFAULT_CHUNK_SIZE_DECRYPT );
     }
 
+    /**
+     * A keystream message may not run into the next chunk's key bytes, so it
+     * is capped by the chunk size.
+     */
     private static void validateMessageLength(
-        @Nonnull byte[] message, @Nonnull byte[] key
+        int messageLength, int chunkSize, @Nonnull XorKeyStore keyStore
     ) {
-        if ( message.length > key.length ) {
+        final int maxMessageLength = keyStore instanceof KeystreamXorKeyStore ? chunkSize : keyStore.size();
+        if ( messageLength > maxMessageLength ) {
             throw new RuntimeException( String.format(
                 "Unsupported message length.  Message Length: %d, Supported Max Message Length: %d",
-                message.length, key.length
+                messageLength, maxMessageLength
             ) );
         }
     }
 
+    @Nonnull
+    public static String getKernelName() {
+        return KERNEL.getName();
+    }
+
     @Override
     public void init( boolean isBaseNEncode, boolean isBaseNDecode, int baseN ) {
         // Do nothing;
     }
 
+    /**
+     * Loads, or generates, the key.  Only one key store gets loaded per
+     * instance, so nothing gets loaded ahead of time when the encryption and
+     * decryption chunk sizes differ and the key size is not known yet.
+     */
+    @Override
+    public void warmUp() throws IOException {
+        if ( getChunkSizeEncrypt() == getChunkSizeDecrypt() ) {
+            getKeyStore( getChunkSizeEncrypt() );
+        }
+    }
+
     @Nonnull
     public byte[] encrypt( @Nonnull final byte[] message ) throws IOException {
-        return xorMessage( message, getKey( getChunkSizeEncrypt() ) );
+        return encrypt( message, 0 );
     }
 
     @Nonnull
     public byte[] decrypt( @Nonnull final byte[] bytes ) throws IOException {
-        return xorMessage( bytes, getKey( getChunkSizeDecrypt() ) );
+        return decrypt( bytes, 0 );
+    }
+
+    @Nonnull
+    @Override
+    public byte[] encrypt( @Nonnull final byte[] message, long chunkIndex ) throws IOException {
+        return xorMessage( message, getChunkSizeEncrypt(), chunkIndex );
+    }
+
+    @Nonnull
+    @Override
+    public byte[] decrypt( @Nonnull final byte[] bytes, long chunkIndex ) throws IOException {
+        return xorMessage( bytes, getChunkSizeDecrypt(), chunkIndex );
+    }
+
+    @Override
+    public int encrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) throws IOException {
+        return encrypt( src, dst, 0 );
+    }
+
+    @Override
+    public int decrypt( @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst ) throws IOException {
+        return decrypt( src, dst, 0 );
+    }
+
+    @Override
+    public int encrypt(
+        @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst, long chunkIndex
+    ) throws IOException {
+        final int chunkSize = getChunkSizeEncrypt();
+
+        return xorMessage( src, dst, chunkSize, chunkIndex, getKeyStore( chunkSize ) );
+    }
+
+    @Override
+    public int decrypt(
+        @Nonnull final ByteBuffer src, @Nonnull final ByteBuffer dst, long chunkIndex
+    ) throws IOException {
+        final int chunkSize = getChunkSizeDecrypt();
+
+        return xorMessage( src, dst, chunkSize, chunkIndex, getKeyStore( chunkSize ) );
+    }
+
+    @Nonnull
+    @Override
+    public int[] encryptBatch( @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst ) throws IOException {
+        return encryptBatch( srcs, dst, 0 );
+    }
+
+    @Nonnull
+    @Override
+    public int[] decryptBatch( @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst ) throws IOException {
+        return decryptBatch( srcs, dst, 0 );
+    }
+
+    /**
+     * Looks the key store up once for the whole batch.
+     */
+    @Nonnull
+    @Override
+    public int[] encryptBatch(
+        @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst, long firstChunkIndex
+    ) throws IOException {
+        return xorBatch( srcs, dst, getChunkSizeEncrypt(), firstChunkIndex );
+    }
+
+    /**
+     * Looks the key store up once for the whole batch.
+     */
+    @Nonnull
+    @Override
+    public int[] decryptBatch(
+        @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst, long firstChunkIndex
+    ) throws IOException {
+        return xorBatch( srcs, dst, getChunkSizeDecrypt(), firstChunkIndex );
+    }
+
+    @Override
+    public boolean isLengthPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsInPlace() {
+        return true;
+    }
+
+    @Override
+    public void encryptInPlace( @Nonnull final byte[] buf, int off, int len ) throws IOException {
+        encryptInPlace( buf, off, len, 0 );
+    }
+
+    @Override
+    public void decryptInPlace( @Nonnull final byte[] buf, int off, int len ) throws IOException {
+        decryptInPlace( buf, off, len, 0 );
+    }
+
+    @Override
+    public void encryptInPlace( @Nonnull final byte[] buf, int off, int len, long chunkIndex ) throws IOException {
+        xorInPlace( buf, off, len, getChunkSizeEncrypt(), chunkIndex );
+    }
+
+    @Override
+    public void decryptInPlace( @Nonnull final byte[] buf, int off, int len, long chunkIndex ) throws IOException {
+        xorInPlace( buf, off, len, getChunkSizeDecrypt(), chunkIndex );
     }
 
     @Nonnull
-    private byte[] xorMessage( @Nonnull byte[] message, @Nonnull byte[] key ) {
-        validateMessageLength( message, key );
+    private byte[] xorMessage( @Nonnull byte[] message, int chunkSize, long chunkIndex ) throws IOException {
+        final XorKeyStore keyStore = getKeyStore( chunkSize );
+        validateMessageLength( message.length, chunkSize, keyStore );
 
         final byte[] messageEncrypted = new byte[message.length];
-        for ( int i = 0; i < message.length; i++ ) {
-            messageEncrypted[i] = (byte) (message[i] ^ key[i]);
-        }
+        keyStore.xor( message, 0, messageEncrypted, 0, message.length, chunkIndex * chunkSize );
 
         return messageEncrypted;
     }
 
+    /**
+     * XORs the source buffer into the destination buffer without allocating.
+     * The source and destination may be the same buffer, in which case the
+     * message gets transformed in place.
+     */
+    private int xorMessage(
+        @Nonnull ByteBuffer src, @Nonnull ByteBuffer dst, int chunkSize, long chunkIndex, @Nonnull XorKeyStore keyStore
+    ) {
+        final int length = src.remaining();
+        validateMessageLength( length, chunkSize, keyStore );
+        validateOutputCapacity( length, dst );
+
+        final int srcPosition = src.position();
+        final int dstPosition = dst.position();
+        keyStore.xor( src, srcPosition, dst, dstPosition, length, chunkIndex * chunkSize );
+
+        src.position( srcPosition + length );
+        dst.position( dstPosition + length );
+
+        return length;
+    }
+
+    private void xorInPlace(
+        @Nonnull final byte[] buf, int off, int len, int chunkSize, long chunkIndex
+    ) throws IOException {
+        Objects.checkFromIndexSize( off, len, buf.length );
+        final XorKeyStore keyStore = getKeyStore( chunkSize );
+        validateMessageLength( len, chunkSize, keyStore );
+
+        keyStore.xor( buf, off, buf, off, len, chunkIndex * chunkSize );
+    }
+
+    @Nonnull
+    private int[] xorBatch(
+        @Nonnull final ByteBuffer[] srcs, @Nonnull final ByteBuffer dst, int chunkSize, long firstChunkIndex
+    ) throws IOException {
+        final XorKeyStore keyStore = getKeyStore( chunkSize );
+        final int[] lengths = new int[srcs.length];
+        for ( int i = 0; i < srcs.length; i++ ) {
+            lengths[i] = xorMessage( srcs[i], dst, chunkSize, firstChunkIndex + i, keyStore );
+        }
+
+        return lengths;
+    }
+
     @Nonnull
-    private synchronized byte[] getKey( int chunkSize ) throws IOException {
-        if ( key == null ) {
-            key = readKey( chunkSize );
-            if ( key == null ) {
-                key = generateKey( chunkSize );
-                saveKey( chunkSize );
+    private XorKeyStore getKeyStore( int chunkSize ) throws IOException {
+        final XorKeyStore loadedKeyStore = keyStore;
+        if ( loadedKeyStore != null ) {
+            return loadedKeyStore;
+        }
+
+        return loadKeyStore( chunkSize );
+    }
+
+    @Nonnull
+    private synchronized XorKeyStore loadKeyStore( int keySize ) throws IOException {
+        if ( keyStore == null && isKeystreamKeyStore() ) {
+            keyStore = loadKeystreamKeyStore( keySize );
+        }
+        if ( keyStore == null ) {
+            keyStore = readKeyStore( keySize );
+            if ( keyStore == null ) {
+                generateKeyFile( keySize );
+                keyStore = readKeyStore( keySize );
             }
         }
 
-        return key;
+        return keyStore;
+    }
+
+    /**
+     * Loads the master key, generating and saving one if there is none yet,
+     * and starts expanding it ahead of a chunk per processor, plus one.
+     */
+    @Nonnull
+    private XorKeyStore loadKeystreamKeyStore( int chunkSize ) throws IOException {
+        final Path masterKeyFile = Paths.get( MASTER_KEY_FILENAME );
+        final byte[] masterKey;
+        if ( Files.exists( masterKeyFile ) ) {
+            masterKey = Files.readAllBytes( masterKeyFile );
+            if ( masterKey.length != KeystreamXorKeyStore.MASTER_KEY_SIZE ) {
+                throw new IOException( String.format(
+                    "Invalid master key file.  Master Key File: \"%s\", Master Key Size: %d, Expected Master Key Size: %d",
+                    masterKeyFile, masterKey.length, KeystreamXorKeyStore.MASTER_KEY_SIZE
+                ) );
+            }
+        }
+        else {
+            final long startNanos = System.nanoTime();
+            masterKey = XorKeyGenerator.generateKey( KeystreamXorKeyStore.MASTER_KEY_SIZE );
+            keyGenerationNanos += System.nanoTime() - startNanos;
+            new File( USER_STORE_FOLDER ).mkdirs();
+            Files.write( masterKeyFile, masterKey );
+        }
+
+        return new KeystreamXorKeyStore(
+            masterKey, (long) chunkSize * (Runtime.getRuntime().availableProcessors() + 1), KERNEL
+        );
     }
 
     @Nullable
-    private byte[] readKey( int keySize ) throws IOException {
+    private XorKeyStore readKeyStore( int keySize ) throws IOException {
         new File( USER_STORE_FOLDER ).mkdirs();
         if ( !new File( getKeyFilename( keySize ) ).exists() ) {
             return null;
         }
 
-        return Files.readAllBytes( Paths.get( getKeyFilename( keySize ) ) );
+        if ( isMappedKeyStore( keySize ) ) {
+            return MappedXorKeyStore.open( Paths.get( getKeyFilename( keySize ) ), keySize, KERNEL );
+        }
+
+        return new HeapXorKeyStore( Files.readAllBytes( Paths.get( getKeyFilename( keySize ) ) ), KERNEL );
+    }
+
+    private static boolean isKeystreamKeyStore() {
+        return "keystream".equalsIgnoreCase( System.getProperty( PN_KEY_STORE ) );
+    }
+
+    private static boolean isMappedKeyStore( int keySize ) {
+        final String keyStoreType = System.getProperty( PN_KEY_STORE );
+        if ( "mapped".equalsIgnoreCase( keyStoreType ) ) {
+            return true;
+        }
+        if ( "heap".equalsIgnoreCase( keyStoreType ) ) {
+            return false;
+        }
+
+        return keySize >= MAPPED_KEY_MIN_SIZE;
     }
 
-    private void saveKey( int keySize ) throws IOException {
+    /**
+     * Generates the key file for keySize, streaming it to disk across all of
+     * the available processors.
+     */
+    private void generateKeyFile( int keySize ) throws IOException {
         new File( USER_STORE_FOLDER ).mkdirs();
-        Files.write( Paths.get( getKeyFilename( keySize ) ), getKey( keySize ) );
+
+        final long startNanos = System.nanoTime();
+        new XorKeyGenerator( Runtime.getRuntime().availableProcessors() )
+            .generate( Paths.get( getKeyFilename( keySize ) ), keySize );
+        keyGenerationNanos += System.nanoTime() - startNanos;
     }
 
-    @Nonnull
-    private String getKeyFilename( int keySize ) {
-        return String.format( "%s.%d", KEY_FILENAME, keySize );
+    @Override
+    public long getKeyGenerationNanos() {
+        return keyGenerationNanos;
     }
 
-    @Nonnull
-    private byte[] generateKey( int keySize ) {
-        final byte[] bytes = new byte[keySize];
-        final SecureRandom secureRandom = new SecureRandom();
-        for ( int i = 0; i < bytes.length; i++ ) {
-            bytes[i] = (byte) secureRandom.nextInt();
-        }
+    @Override
+    public String toString() {
+        return String.format(
+            "%s[chunkSizeEncrypt=%d, chunkSizeDecrypt=%d, kernel=%s]",
+            getClass().getSimpleName(), chunkSizeEncrypt, chunkSizeDecrypt, getKernelName()
+        );
+    }
 
-        return bytes;
+    @Nonnull
+    private String getKeyFilename( int keySize ) {
+        return String.format( "%s.%d", KEY_FILENAME, keySize );
     }
 
 }
@@ -0,0 +1,58 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This interface defines the inner loop of the XOR cryptosystem, XORing a
+ * run of message bytes against the key bytes at the same positions.  The
+ * source and destination may be the same array at the same offset, in which
+ * case the message gets transformed in place.
+ */
+interface XorKernel {
+
+    @Nonnull
+    String getName();
+
+    void xor(
+        @Nonnull byte[] src, int srcOffset,
+        @Nonnull byte[] key, int keyOffset,
+        @Nonnull byte[] dst, int dstOffset,
+        int length
+    );
+
+    /**
+     * XORs using absolute buffer indexes, leaving the buffer positions as they
+     * are.
+     */
+    void xor(
+        @Nonnull ByteBuffer src, int srcIndex,
+        @Nonnull byte[] key, int keyOffset,
+        @Nonnull ByteBuffer dst, int dstIndex,
+        int length
+    );
+
+    /**
+     * XORs against a key held in a buffer, such as a memory-mapped key file,
+     * using absolute key indexes.
+     */
+    void xor(
+        @Nonnull byte[] src, int srcOffset,
+        @Nonnull ByteBuffer key, int keyIndex,
+        @Nonnull byte[] dst, int dstOffset,
+        int length
+    );
+
+    /**
+     * XORs against a key held in a buffer, using absolute indexes for all three
+     * buffers.
+     */
+    void xor(
+        @Nonnull ByteBuffer src, int srcIndex,
+        @Nonnull ByteBuffer key, int keyIndex,
+        @Nonnull ByteBuffer dst, int dstIndex,
+        int length
+    );
+
+}
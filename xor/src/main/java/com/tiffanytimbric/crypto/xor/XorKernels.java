@@ -0,0 +1,41 @@
+package com.tiffanytimbric.crypto.xor;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class selects the fastest XOR kernel the running JVM supports.  The
+ * vector kernel gets used when the "jdk.incubator.vector" module has been
+ * added, e.g. with "--add-modules jdk.incubator.vector", otherwise the long
+ * kernel gets used.  Setting the "crypto.xor.kernel" system property to
+ * "long" forces the long kernel.
+ */
+final class XorKernels {
+
+    static final String PN_KERNEL = "crypto.xor.kernel";
+    private static final String VECTOR_MODULE_NAME = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL_CLASSNAME = "com.tiffanytimbric.crypto.xor.VectorXorKernel";
+
+
+    private XorKernels() {
+    }
+
+    @Nonnull
+    static XorKernel select() {
+        if ( "long".equalsIgnoreCase( System.getProperty( PN_KERNEL ) ) ) {
+            return LongXorKernel.INSTANCE;
+        }
+
+        if ( ModuleLayer.boot().findModule( VECTOR_MODULE_NAME ).isEmpty() ) {
+            return LongXorKernel.INSTANCE;
+        }
+
+        try {
+            return (XorKernel) Class.forName( VECTOR_KERNEL_CLASSNAME ).getDeclaredConstructor().newInstance();
+        }
+        catch ( ReflectiveOperationException | LinkageError e ) {
+            return LongXorKernel.INSTANCE;
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This class generates XOR key files.  Random bytes get generated a block at
+ * a time, by {@link SecureRandom#nextBytes(byte[])}, and written straight to
+ * the key file, so no more than one block per thread is ever held on the
+ * heap.
+ * <p>
+ * Keys larger than one block get split into contiguous regions, one per
+ * thread, each filled by its own independently seeded generator, so the
+ * threads never contend on a shared generator.  The key gets written to a
+ * temporary file first and moved into place once complete, so an
+ * interrupted generation never leaves a short key behind.
+ */
+final class XorKeyGenerator {
+
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final String SECURE_RANDOM_ALGORITHM = "DRBG";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final int threadCount;
+
+
+    XorKeyGenerator( int threadCount ) {
+        if ( threadCount < 1 ) {
+            throw new IllegalArgumentException( String.format(
+                "Unsupported thread count.  Thread Count: %d, Supported Min Thread Count: 1", threadCount
+            ) );
+        }
+
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @return a key of keySize random bytes, for keys small enough to be
+     * held on the heap.
+     */
+    @Nonnull
+    static byte[] generateKey( int keySize ) throws IOException {
+        final byte[] key = new byte[keySize];
+        newSecureRandom().nextBytes( key );
+
+        return key;
+    }
+
+    /**
+     * Generates a key of keySize random bytes into the key file, replacing
+     * any key file already there.
+     */
+    void generate( @Nonnull final Path keyFile, long keySize ) throws IOException {
+        final Path tempFile = keyFile.resolveSibling( keyFile.getFileName() + TEMP_FILE_SUFFIX );
+        try ( final FileChannel channel = FileChannel.open(
+            tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        ) ) {
+            final long blockCount = (keySize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            final int regionCount = (int) Math.max( 1, Math.min( threadCount, blockCount ) );
+            final long regionSize = (blockCount + regionCount - 1) / regionCount * BLOCK_SIZE;
+            if ( regionCount == 1 ) {
+                generateRegion( channel, 0, keySize );
+            }
+            else {
+                generateRegions( channel, keySize, regionCount, regionSize );
+            }
+        }
+        catch ( IOException | RuntimeException e ) {
+            Files.deleteIfExists( tempFile );
+
+            throw e;
+        }
+
+        Files.move( tempFile, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    private void generateRegions(
+        @Nonnull final FileChannel channel, long keySize, int regionCount, long regionSize
+    ) throws IOException {
+        final ExecutorService executorService = Executors.newFixedThreadPool( regionCount, runnable -> {
+            final Thread thread = new Thread( runnable, "xor-keygen" );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+        try {
+            final List<Future<Void>> futures = new ArrayList<>( regionCount );
+            for ( long start = 0; start < keySize; start += regionSize ) {
+                final long regionStart = start;
+                final long regionEnd = Math.min( keySize, start + regionSize );
+                futures.add( executorService.submit( () -> {
+                    generateRegion( channel, regionStart, regionEnd );
+
+                    return null;
+                } ) );
+            }
+
+            for ( final Future<Void> future : futures ) {
+                future.get();
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException( "Interrupted generating a key.", e );
+        }
+        catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof IOException ioException ) {
+                throw ioException;
+            }
+
+            throw new RuntimeException( "Key generation failed.", e.getCause() );
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Fills the key file from start up to end with bytes from a generator of
+     * its own.
+     */
+    private static void generateRegion( @Nonnull final FileChannel channel, long start, long end ) throws IOException {
+        final SecureRandom secureRandom = newSecureRandom();
+        final byte[] block = new byte[(int) Math.min( BLOCK_SIZE, end - start )];
+        final ByteBuffer blockBuffer = ByteBuffer.wrap( block );
+        for ( long position = start; position < end; position += block.length ) {
+            secureRandom.nextBytes( block );
+            blockBuffer.clear().limit( (int) Math.min( block.length, end - position ) );
+            while ( blockBuffer.hasRemaining() ) {
+                channel.write( blockBuffer, position + blockBuffer.position() );
+            }
+        }
+    }
+
+    /**
+     * @return a generator seeded from the platform's entropy source, sharing
+     * no state with any other generator.
+     */
+    @Nonnull
+    private static SecureRandom newSecureRandom() throws IOException {
+        try {
+            return SecureRandom.getInstance( SECURE_RANDOM_ALGORITHM );
+        }
+        catch ( GeneralSecurityException e ) {
+            throw new IOException( String.format(
+                "Unsupported secure random algorithm.  Algorithm: %s", SECURE_RANDOM_ALGORITHM
+            ), e );
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.tiffanytimbric.crypto.xor;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * This interface defines where the XOR key bytes live.  A key file store XORs
+ * message byte i with key byte i, so the key size caps the message length.  A
+ * keystream key store is unbounded, and XORs each message with the keystream
+ * from the message's offset in the stream.
+ */
+interface XorKeyStore {
+
+    int size();
+
+    void xor( @Nonnull byte[] src, int srcOffset, @Nonnull byte[] dst, int dstOffset, int length );
+
+    void xor( @Nonnull ByteBuffer src, int srcIndex, @Nonnull ByteBuffer dst, int dstIndex, int length );
+
+    /**
+     * XORs a message starting at the given offset of the stream.  Key file
+     * stores XOR every message from the first key byte, so they ignore the
+     * offset.
+     */
+    default void xor(
+        @Nonnull byte[] src, int srcOffset, @Nonnull byte[] dst, int dstOffset, int length, long streamOffset
+    ) {
+        xor( src, srcOffset, dst, dstOffset, length );
+    }
+
+    /**
+     * XORs a message starting at the given offset of the stream, as
+     * {@link #xor(byte[], int, byte[], int, int, long)} does.
+     */
+    default void xor(
+        @Nonnull ByteBuffer src, int srcIndex, @Nonnull ByteBuffer dst, int dstIndex, int length, long streamOffset
+    ) {
+        xor( src, srcIndex, dst, dstIndex, length );
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.tiffanytimbric.crypto.xor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class KeystreamXorKeyStoreTest {
+
+    private static final int BLOCK_SIZE = KeystreamXorKeyStore.BLOCK_SIZE;
+
+    private final byte[] masterKey = randomBytes( KeystreamXorKeyStore.MASTER_KEY_SIZE );
+
+
+    @Test
+    void xorsWithTheAesEncryptedZerosAcrossBlocks() throws GeneralSecurityException {
+        final KeystreamXorKeyStore keyStore = new KeystreamXorKeyStore( masterKey, 0, LongXorKernel.INSTANCE );
+        final int length = 2 * BLOCK_SIZE + 17;
+
+        assertArrayEquals( expectedKey( length ), xor( keyStore, new byte[length] ) );
+    }
+
+    @Test
+    void xorsEveryMessageWithTheKeystreamFromItsStreamOffset() throws GeneralSecurityException {
+        final KeystreamXorKeyStore keyStore = new KeystreamXorKeyStore( masterKey, BLOCK_SIZE, LongXorKernel.INSTANCE );
+        final byte[] message = randomBytes( BLOCK_SIZE + 3 );
+
+        for ( final long streamOffset : new long[]{0, 5, BLOCK_SIZE - 1, BLOCK_SIZE, 3L * BLOCK_SIZE + 100, 7} ) {
+            final byte[] key = expectedKey( streamOffset, message.length );
+            final byte[] encrypted = xor( keyStore, message, streamOffset );
+            for ( int j = 0; j < message.length; j++ ) {
+                assertEquals( (byte) (message[j] ^ key[j]), encrypted[j], "Stream offset " + streamOffset );
+            }
+            assertArrayEquals( message, xor( keyStore, encrypted, streamOffset ) );
+        }
+    }
+
+    @Test
+    void xorsConsecutiveChunksWithConsecutiveKeyBytes() throws GeneralSecurityException {
+        final KeystreamXorKeyStore keyStore = new KeystreamXorKeyStore( masterKey, 0, LongXorKernel.INSTANCE );
+        final int chunkSize = 1000;
+        final byte[] key = new byte[5 * chunkSize];
+        for ( int chunkIndex = 4; chunkIndex >= 0; chunkIndex-- ) {
+            final byte[] chunkKey = xor( keyStore, new byte[chunkSize], (long) chunkIndex * chunkSize );
+            System.arraycopy( chunkKey, 0, key, chunkIndex * chunkSize, chunkSize );
+        }
+
+        assertArrayEquals( expectedKey( 0, key.length ), key );
+        assertFalse( Arrays.equals(
+            Arrays.copyOfRange( key, 0, chunkSize ), Arrays.copyOfRange( key, chunkSize, 2 * chunkSize )
+        ) );
+    }
+
+    @Test
+    void xorsByteBuffers() {
+        final KeystreamXorKeyStore keyStore = new KeystreamXorKeyStore( masterKey, 0, LongXorKernel.INSTANCE );
+        final byte[] message = randomBytes( BLOCK_SIZE + 5 );
+        final ByteBuffer buffer = ByteBuffer.allocateDirect( message.length + 2 );
+        buffer.position( 2 );
+        buffer.put( message );
+
+        keyStore.xor( buffer, 2, buffer, 2, message.length, BLOCK_SIZE - 9 );
+        final byte[] encrypted = new byte[message.length];
+        buffer.get( 2, encrypted );
+
+        assertArrayEquals( xor( keyStore, message, BLOCK_SIZE - 9 ), encrypted );
+    }
+
+    @Test
+    void regeneratesBlocksDroppedFromTheRing() throws GeneralSecurityException {
+        final KeystreamXorKeyStore keyStore = new KeystreamXorKeyStore( masterKey, BLOCK_SIZE, LongXorKernel.INSTANCE );
+        assertEquals( 4, keyStore.getCapacity() );
+
+        for ( int blockIndex = 0; blockIndex < 40; blockIndex++ ) {
+            xor( keyStore, new byte[BLOCK_SIZE], (long) blockIndex * BLOCK_SIZE );
+        }
+        assertEquals( 4, keyStore.getCapacity() );
+
+        assertArrayEquals( expectedKey( 3, 100 ), xor( keyStore, new byte[100], 3 ) );
+        assertArrayEquals(
+            expectedKey( 38L * BLOCK_SIZE, BLOCK_SIZE ), xor( keyStore, new byte[BLOCK_SIZE], 38L * BLOCK_SIZE )
+        );
+    }
+
+    @Test
+    void boundsThePrefetch() {
+        final KeystreamXorKeyStore keyStore = new KeystreamXorKeyStore(
+            masterKey, Long.MAX_VALUE / 2, LongXorKernel.INSTANCE
+        );
+
+        assertEquals( 2 * KeystreamXorKeyStore.MAX_PREFETCH_BLOCKS, keyStore.getCapacity() );
+    }
+
+    @Test
+    void rejectsUnsupportedMasterKeySize() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new KeystreamXorKeyStore( new byte[16], 0, LongXorKernel.INSTANCE )
+        );
+    }
+
+    @Nonnull
+    private static byte[] xor( @Nonnull final KeystreamXorKeyStore keyStore, @Nonnull final byte[] message ) {
+        final byte[] encrypted = new byte[message.length];
+        keyStore.xor( message, 0, encrypted, 0, message.length );
+
+        return encrypted;
+    }
+
+    @Nonnull
+    private static byte[] xor(
+        @Nonnull final KeystreamXorKeyStore keyStore, @Nonnull final byte[] message, long streamOffset
+    ) {
+        final byte[] encrypted = new byte[message.length];
+        keyStore.xor( message, 0, encrypted, 0, message.length, streamOffset );
+
+        return encrypted;
+    }
+
+    @Nonnull
+    private byte[] expectedKey( int length ) throws GeneralSecurityException {
+        return expectedKey( 0, length );
+    }
+
+    /**
+     * @return the key bytes from the stream offset on, cut out of the AES-CTR
+     * encryption of the zeros in front of them as well.
+     */
+    @Nonnull
+    private byte[] expectedKey( long streamOffset, int length ) throws GeneralSecurityException {
+        final Cipher cipher = Cipher.getInstance( "AES/CTR/NoPadding" );
+        cipher.init( Cipher.ENCRYPT_MODE, new SecretKeySpec( masterKey, "AES" ), new IvParameterSpec( new byte[16] ) );
+        final byte[] key = cipher.doFinal( new byte[Math.toIntExact( streamOffset + length )] );
+
+        return Arrays.copyOfRange( key, (int) streamOffset, key.length );
+    }
+
+    @Nonnull
+    private static byte[] randomBytes( int length ) {
+        final byte[] bytes = new byte[length];
+        new Random( length ).nextBytes( bytes );
+
+        return bytes;
+    }
+
+}
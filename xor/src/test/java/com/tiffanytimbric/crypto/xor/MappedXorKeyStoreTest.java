@@ -0,0 +1,109 @@
+package com.tiffanytimbric.crypto.xor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class MappedXorKeyStoreTest {
+
+    private static final int KEY_SIZE = 100_000;
+
+    @TempDir
+    Path folder;
+
+    private final Random random = new Random( 42 );
+    private Path keyFile;
+
+
+    @BeforeEach
+    void setUp() throws IOException {
+        keyFile = folder.resolve( "encryption_key." + KEY_SIZE );
+        new XorKeyGenerator( 2 ).generate( keyFile, KEY_SIZE );
+    }
+
+    @Test
+    void xorsAsTheHeapStoreForTheSameKeyFile() throws IOException {
+        final HeapXorKeyStore heapKeyStore = new HeapXorKeyStore( Files.readAllBytes( keyFile ), XorKernels.select() );
+        final MappedXorKeyStore mappedKeyStore = MappedXorKeyStore.open( keyFile, KEY_SIZE, XorKernels.select() );
+        assertEquals( heapKeyStore.size(), mappedKeyStore.size() );
+
+        for ( final int length : new int[]{0, 1, 31, 64, 4097, KEY_SIZE - 3, KEY_SIZE} ) {
+            final int offset = random.nextInt( 16 );
+            final byte[] message = randomBytes( offset + length );
+
+            assertArrayEquals(
+                xor( heapKeyStore, message, offset, length ), xor( mappedKeyStore, message, offset, length ),
+                "Length " + length
+            );
+            for ( final boolean direct : new boolean[]{false, true} ) {
+                assertArrayEquals(
+                    xor( heapKeyStore, message, offset, length, direct ),
+                    xor( mappedKeyStore, message, offset, length, direct ),
+                    "Length " + length + ", direct " + direct
+                );
+            }
+        }
+    }
+
+    @Test
+    void mapsOnlyTheKeySize() throws IOException {
+        final MappedXorKeyStore mappedKeyStore = MappedXorKeyStore.open( keyFile, 4096, XorKernels.select() );
+        final byte[] message = new byte[4096];
+
+        assertEquals( 4096, mappedKeyStore.size() );
+        assertArrayEquals(
+            xor( new HeapXorKeyStore( Files.readAllBytes( keyFile ), XorKernels.select() ), message, 0, 4096 ),
+            xor( mappedKeyStore, message, 0, 4096 )
+        );
+    }
+
+    @Test
+    void rejectsKeyFileShorterThanTheKeySize() {
+        assertThrows( IOException.class, () -> MappedXorKeyStore.open( keyFile, KEY_SIZE + 1, XorKernels.select() ) );
+    }
+
+    @Nonnull
+    private static byte[] xor(
+        @Nonnull final XorKeyStore keyStore, @Nonnull final byte[] message, int offset, int length
+    ) {
+        final byte[] dst = new byte[length];
+        keyStore.xor( message, offset, dst, 0, length );
+
+        return dst;
+    }
+
+    @Nonnull
+    private static byte[] xor(
+        @Nonnull final XorKeyStore keyStore, @Nonnull final byte[] message, int offset, int length, boolean direct
+    ) {
+        final ByteBuffer buffer = direct ? ByteBuffer.allocateDirect( message.length ) : ByteBuffer.allocate( message.length );
+        buffer.put( message ).clear();
+        keyStore.xor( buffer, offset, buffer, offset, length );
+
+        final byte[] dst = new byte[length];
+        buffer.get( offset, dst );
+
+        return dst;
+    }
+
+    @Nonnull
+    private byte[] randomBytes( int length ) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes( bytes );
+
+        return bytes;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.tiffanytimbric.crypto.xor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Generates, or reuses, the XOR key in the "~/.xorutil" folder, which the
+ * build points at its own home folder.
+ */
+class XorCryptosystemTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final Random random = new Random( 42 );
+    private XorCryptosystem cryptosystem;
+
+
+    @BeforeEach
+    void setUp() {
+        cryptosystem = new XorCryptosystem();
+        cryptosystem.setChunkSizeEncrypt( CHUNK_SIZE );
+        cryptosystem.setChunkSizeDecrypt( CHUNK_SIZE );
+    }
+
+    @Test
+    void encryptsInPlaceAsTheCopyingPathDoes() throws IOException {
+        assertTrue( cryptosystem.supportsInPlace() );
+
+        for ( final int length : new int[]{0, 1, 7, 8, 63, 64, 65, CHUNK_SIZE - 1, CHUNK_SIZE} ) {
+            final byte[] message = randomBytes( length );
+            final byte[] encrypted = cryptosystem.encrypt( message );
+
+            final byte[] buf = message.clone();
+            cryptosystem.encryptInPlace( buf, 0, buf.length );
+            assertArrayEquals( encrypted, buf, "Length " + length );
+
+            cryptosystem.decryptInPlace( buf, 0, buf.length );
+            assertArrayEquals( message, buf, "Length " + length );
+        }
+    }
+
+    @Test
+    void encryptsSubRangeInPlace() throws IOException {
+        for ( final int[] range : new int[][]{{1, 100}, {13, CHUNK_SIZE}, {CHUNK_SIZE, 3}, {40, 0}} ) {
+            final int off = range[0];
+            final int len = range[1];
+            final byte[] original = randomBytes( off + len + 11 );
+            final byte[] encrypted = cryptosystem.encrypt( Arrays.copyOfRange( original, off, off + len ) );
+
+            final byte[] buf = original.clone();
+            cryptosystem.encryptInPlace( buf, off, len );
+            assertArrayEquals( Arrays.copyOfRange( original, 0, off ), Arrays.copyOfRange( buf, 0, off ) );
+            assertArrayEquals( encrypted, Arrays.copyOfRange( buf, off, off + len ) );
+            assertArrayEquals(
+                Arrays.copyOfRange( original, off + len, original.length ),
+                Arrays.copyOfRange( buf, off + len, buf.length )
+            );
+
+            cryptosystem.decryptInPlace( buf, off, len );
+            assertArrayEquals( original, buf );
+        }
+    }
+
+    @Test
+    void encryptsBuffersAsTheCopyingPathDoes() throws IOException {
+        final byte[] message = randomBytes( CHUNK_SIZE - 5 );
+        final ByteBuffer buffer = ByteBuffer.allocateDirect( message.length ).put( message ).flip();
+
+        cryptosystem.encrypt( buffer.duplicate(), buffer.duplicate() );
+        final byte[] encrypted = new byte[message.length];
+        buffer.get( 0, encrypted );
+
+        assertArrayEquals( cryptosystem.encrypt( message ), encrypted );
+    }
+
+    @Test
+    void rejectsRangeOutsideTheBuffer() {
+        final byte[] buf = new byte[10];
+
+        assertThrows( IndexOutOfBoundsException.class, () -> cryptosystem.encryptInPlace( buf, 5, 6 ) );
+        assertThrows( IndexOutOfBoundsException.class, () -> cryptosystem.decryptInPlace( buf, -1, 2 ) );
+    }
+
+    @Test
+    void rejectsRangeLongerThanTheKey() {
+        final byte[] buf = new byte[CHUNK_SIZE + 1];
+
+        assertThrows( RuntimeException.class, () -> cryptosystem.encryptInPlace( buf, 0, buf.length ) );
+    }
+
+    @Test
+    void encryptsKeystreamChunksAtTheirStreamPosition() throws IOException {
+        final XorCryptosystem keystream = newKeystreamCryptosystem();
+        final byte[] zeros = new byte[CHUNK_SIZE];
+        final byte[] first = keystream.encrypt( zeros, 0 );
+        final byte[] second = keystream.encrypt( zeros, 1 );
+
+        assertFalse( Arrays.equals( first, second ) );
+        assertFalse( Arrays.equals( zeros, first ) );
+        assertArrayEquals( first, keystream.encrypt( zeros ) );
+        assertArrayEquals( zeros, keystream.decrypt( second, 1 ) );
+    }
+
+    @Test
+    void encryptsKeystreamBatchesAndInPlaceAsSingleChunks() throws IOException {
+        final XorCryptosystem keystream = newKeystreamCryptosystem();
+        final byte[] message = randomBytes( 3 * CHUNK_SIZE - 10 );
+        final byte[] expected = new byte[message.length];
+        for ( int i = 0; i < 3; i++ ) {
+            final int offset = i * CHUNK_SIZE;
+            final byte[] chunk = Arrays.copyOfRange( message, offset, Math.min( message.length, offset + CHUNK_SIZE ) );
+            System.arraycopy( keystream.encrypt( chunk, 5 + i ), 0, expected, offset, chunk.length );
+        }
+
+        final ByteBuffer src = ByteBuffer.wrap( message );
+        final ByteBuffer[] srcs = {
+            src.slice( 0, CHUNK_SIZE ), src.slice( CHUNK_SIZE, CHUNK_SIZE ),
+            src.slice( 2 * CHUNK_SIZE, CHUNK_SIZE - 10 )
+        };
+        final ByteBuffer dst = ByteBuffer.allocateDirect( message.length );
+        assertArrayEquals( new int[]{CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE - 10}, keystream.encryptBatch( srcs, dst, 5 ) );
+        final byte[] encrypted = new byte[message.length];
+        dst.get( 0, encrypted );
+        assertArrayEquals( expected, encrypted );
+
+        final byte[] buf = message.clone();
+        keystream.encryptInPlace( buf, CHUNK_SIZE, CHUNK_SIZE, 6 );
+        assertArrayEquals(
+            Arrays.copyOfRange( expected, CHUNK_SIZE, 2 * CHUNK_SIZE ),
+            Arrays.copyOfRange( buf, CHUNK_SIZE, 2 * CHUNK_SIZE )
+        );
+        keystream.decryptInPlace( buf, CHUNK_SIZE, CHUNK_SIZE, 6 );
+        assertArrayEquals( message, buf );
+    }
+
+    @Test
+    void decryptsKeystreamChunksOfAnotherChunkSizeByStreamOffset() throws IOException {
+        final XorCryptosystem keystream = newKeystreamCryptosystem();
+        final byte[] message = randomBytes( 2 * CHUNK_SIZE );
+        final byte[] encrypted = new byte[message.length];
+        System.arraycopy( keystream.encrypt( Arrays.copyOf( message, CHUNK_SIZE ), 2 ), 0, encrypted, 0, CHUNK_SIZE );
+        System.arraycopy(
+            keystream.encrypt( Arrays.copyOfRange( message, CHUNK_SIZE, message.length ), 3 ), 0,
+            encrypted, CHUNK_SIZE, CHUNK_SIZE
+        );
+
+        keystream.setChunkSizeDecrypt( 2 * CHUNK_SIZE );
+        assertArrayEquals( message, keystream.decrypt( encrypted, 1 ) );
+    }
+
+    @Test
+    void rejectsKeystreamChunkLongerThanTheChunkSize() throws IOException {
+        final XorCryptosystem keystream = newKeystreamCryptosystem();
+
+        assertThrows( RuntimeException.class, () -> keystream.encrypt( new byte[CHUNK_SIZE + 1], 0 ) );
+    }
+
+    /**
+     * @return a cryptosystem whose key store has been loaded as a keystream.
+     */
+    @Nonnull
+    private static XorCryptosystem newKeystreamCryptosystem() throws IOException {
+        final XorCryptosystem keystream = new XorCryptosystem();
+        keystream.setChunkSizeEncrypt( CHUNK_SIZE );
+        keystream.setChunkSizeDecrypt( CHUNK_SIZE );
+        System.setProperty( XorCryptosystem.PN_KEY_STORE, "keystream" );
+        try {
+            keystream.warmUp();
+        }
+        finally {
+            System.clearProperty( XorCryptosystem.PN_KEY_STORE );
+        }
+
+        return keystream;
+    }
+
+    @Nonnull
+    private byte[] randomBytes( int length ) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes( bytes );
+
+        return bytes;
+    }
+
+}
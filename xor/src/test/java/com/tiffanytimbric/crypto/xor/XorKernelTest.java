@@ -0,0 +1,203 @@
+package com.tiffanytimbric.crypto.xor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Checks every kernel against a plain byte at a time XOR, over random offsets
+ * and lengths which leave tails shorter than a vector or a long, and over
+ * heap, sliced heap, read-only and direct buffers.
+ */
+class XorKernelTest {
+
+    private static final int ROUNDS = 500;
+    private static final int MAX_OFFSET = 40;
+    private static final int MAX_LENGTH = 300;
+
+    private final Random random = new Random( 42 );
+
+
+    @Test
+    void selectsTheVectorKernelWhenTheModuleIsPresent() {
+        assertTrue( XorKernels.select().getName().startsWith( "vector" ) );
+    }
+
+    @Test
+    void xorsArrays() {
+        for ( final XorKernel kernel : kernels() ) {
+            for ( int round = 0; round < ROUNDS; round++ ) {
+                final Run run = new Run();
+                kernel.xor( run.src, run.srcOffset, run.key, run.keyOffset, run.dst, run.dstOffset, run.length );
+
+                assertArrayEquals( run.expected(), run.dst, kernel.getName() + " " + run );
+            }
+        }
+    }
+
+    @Test
+    void xorsBuffersWithArrayKey() {
+        for ( final XorKernel kernel : kernels() ) {
+            for ( int round = 0; round < ROUNDS; round++ ) {
+                final Run run = new Run();
+                final ByteBuffer src = toBuffer( run.src, round, true );
+                final ByteBuffer dst = toBuffer( run.dst, round / 4, false );
+                kernel.xor( src, run.srcOffset, run.key, run.keyOffset, dst, run.dstOffset, run.length );
+
+                assertPositionsUnchanged( src, dst );
+                assertArrayEquals( run.expected(), toArray( dst ), kernel.getName() + " " + run );
+            }
+        }
+    }
+
+    @Test
+    void xorsArraysWithBufferKey() {
+        for ( final XorKernel kernel : kernels() ) {
+            for ( int round = 0; round < ROUNDS; round++ ) {
+                final Run run = new Run();
+                final ByteBuffer key = toBuffer( run.key, round, true );
+                kernel.xor( run.src, run.srcOffset, key, run.keyOffset, run.dst, run.dstOffset, run.length );
+
+                assertEquals( 0, key.position() );
+                assertArrayEquals( run.expected(), run.dst, kernel.getName() + " " + run );
+            }
+        }
+    }
+
+    @Test
+    void xorsBuffersWithBufferKey() {
+        for ( final XorKernel kernel : kernels() ) {
+            for ( int round = 0; round < ROUNDS; round++ ) {
+                final Run run = new Run();
+                final ByteBuffer src = toBuffer( run.src, round, true );
+                final ByteBuffer key = toBuffer( run.key, round / 4, true );
+                final ByteBuffer dst = toBuffer( run.dst, round / 16, false );
+                kernel.xor( src, run.srcOffset, key, run.keyOffset, dst, run.dstOffset, run.length );
+
+                assertPositionsUnchanged( src, key, dst );
+                assertArrayEquals( run.expected(), toArray( dst ), kernel.getName() + " " + run );
+            }
+        }
+    }
+
+    @Test
+    void xorsInPlace() {
+        for ( final XorKernel kernel : kernels() ) {
+            for ( int round = 0; round < ROUNDS; round++ ) {
+                final Run run = new Run();
+                final byte[] expected = run.expectedInPlace();
+
+                final ByteBuffer buffer = toBuffer( run.src.clone(), round, false );
+                kernel.xor( buffer, run.srcOffset, run.key, run.keyOffset, buffer, run.srcOffset, run.length );
+                assertArrayEquals( expected, toArray( buffer ), kernel.getName() + " " + run );
+
+                kernel.xor( run.src, run.srcOffset, run.key, run.keyOffset, run.src, run.srcOffset, run.length );
+                assertArrayEquals( expected, run.src, kernel.getName() + " " + run );
+            }
+        }
+    }
+
+    @Nonnull
+    private static List<XorKernel> kernels() {
+        return List.of( LongXorKernel.INSTANCE, new VectorXorKernel() );
+    }
+
+    /**
+     * @return the bytes in a heap, sliced heap, direct, or, when readOnly is
+     * set, read-only buffer, depending on the variant.
+     */
+    @Nonnull
+    private static ByteBuffer toBuffer( @Nonnull final byte[] bytes, int variant, boolean readOnly ) {
+        switch ( variant % (readOnly ? 4 : 3) ) {
+            case 0:
+                return ByteBuffer.wrap( bytes );
+            case 1:
+                final byte[] padded = new byte[bytes.length + 5];
+                System.arraycopy( bytes, 0, padded, 5, bytes.length );
+
+                return ByteBuffer.wrap( padded ).position( 5 ).slice();
+            case 2:
+                return ByteBuffer.allocateDirect( bytes.length ).put( bytes ).clear();
+            default:
+                return ByteBuffer.wrap( bytes ).asReadOnlyBuffer();
+        }
+    }
+
+    @Nonnull
+    private static byte[] toArray( @Nonnull final ByteBuffer buffer ) {
+        final byte[] bytes = new byte[buffer.capacity()];
+        buffer.get( 0, bytes );
+
+        return bytes;
+    }
+
+    private static void assertPositionsUnchanged( @Nonnull final ByteBuffer... buffers ) {
+        for ( final ByteBuffer buffer : buffers ) {
+            assertEquals( 0, buffer.position() );
+            assertEquals( buffer.capacity(), buffer.limit() );
+        }
+    }
+
+
+    /**
+     * Random source, key and destination bytes, with random offsets into each
+     * and a random length, mostly short, sometimes spanning many vectors.
+     */
+    private final class Run {
+
+        private final int srcOffset = random.nextInt( MAX_OFFSET );
+        private final int keyOffset = random.nextInt( MAX_OFFSET );
+        private final int dstOffset = random.nextInt( MAX_OFFSET );
+        private final int length = random.nextInt( 8 ) == 0 ? 4096 + random.nextInt( 64 ) : random.nextInt( MAX_LENGTH );
+        private final byte[] src = randomBytes( srcOffset + length + random.nextInt( 8 ) );
+        private final byte[] key = randomBytes( keyOffset + length + random.nextInt( 8 ) );
+        private final byte[] dst = randomBytes( dstOffset + length + random.nextInt( 8 ) );
+        private final byte[] originalDst = dst.clone();
+
+
+        @Nonnull
+        private byte[] expected() {
+            final byte[] expected = originalDst.clone();
+            for ( int i = 0; i < length; i++ ) {
+                expected[dstOffset + i] = (byte) (src[srcOffset + i] ^ key[keyOffset + i]);
+            }
+
+            return expected;
+        }
+
+        @Nonnull
+        private byte[] expectedInPlace() {
+            final byte[] expected = src.clone();
+            for ( int i = 0; i < length; i++ ) {
+                expected[srcOffset + i] ^= key[keyOffset + i];
+            }
+
+            return expected;
+        }
+
+        @Nonnull
+        private byte[] randomBytes( int length ) {
+            final byte[] bytes = new byte[length];
+            random.nextBytes( bytes );
+
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "srcOffset %d, keyOffset %d, dstOffset %d, length %d", srcOffset, keyOffset, dstOffset, length
+            );
+        }
+
+    }
+
+}
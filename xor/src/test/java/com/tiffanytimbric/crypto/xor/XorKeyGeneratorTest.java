@@ -0,0 +1,108 @@
+package com.tiffanytimbric.crypto.xor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class XorKeyGeneratorTest {
+
+    private static final int BLOCK_SIZE = XorKeyGenerator.BLOCK_SIZE;
+
+    @TempDir
+    Path folder;
+
+
+    @Test
+    void generatesKeyFileOfTheKeySize() throws IOException {
+        for ( final int threadCount : new int[]{1, 4} ) {
+            for ( final long keySize : new long[]{0, 1, 4096, BLOCK_SIZE - 1, BLOCK_SIZE, 3L * BLOCK_SIZE + 17} ) {
+                final Path keyFile = folder.resolve( "key." + threadCount + "." + keySize );
+                new XorKeyGenerator( threadCount ).generate( keyFile, keySize );
+
+                assertEquals( keySize, Files.size( keyFile ), threadCount + " threads, key size " + keySize );
+                assertFalse( Files.exists( tempFile( keyFile ) ) );
+            }
+        }
+    }
+
+    @Test
+    void fillsEveryRegionWithItsOwnRandomBytes() throws IOException {
+        final Path keyFile = folder.resolve( "key" );
+        new XorKeyGenerator( 4 ).generate( keyFile, 4L * BLOCK_SIZE );
+
+        final byte[] key = Files.readAllBytes( keyFile );
+        final byte[][] regionStarts = new byte[4][];
+        for ( int region = 0; region < 4; region++ ) {
+            regionStarts[region] = Arrays.copyOfRange( key, region * BLOCK_SIZE, region * BLOCK_SIZE + 64 );
+            assertFalse( Arrays.equals( new byte[64], regionStarts[region] ), "Region " + region );
+        }
+        for ( int region = 1; region < 4; region++ ) {
+            assertFalse( Arrays.equals( regionStarts[0], regionStarts[region] ), "Region " + region );
+        }
+        assertFalse( Arrays.equals( new byte[64], Arrays.copyOfRange( key, key.length - 64, key.length ) ) );
+    }
+
+    @Test
+    void replacesExistingKeyFile() throws IOException {
+        final Path keyFile = folder.resolve( "key" );
+        final byte[] oldKey = new byte[2 * BLOCK_SIZE + 100];
+        Arrays.fill( oldKey, (byte) 0x55 );
+        Files.write( keyFile, oldKey );
+        Files.write( tempFile( keyFile ), oldKey );
+
+        new XorKeyGenerator( 2 ).generate( keyFile, 5000 );
+
+        final byte[] key = Files.readAllBytes( keyFile );
+        assertEquals( 5000, key.length );
+        assertFalse( Arrays.equals( Arrays.copyOf( oldKey, key.length ), key ) );
+        assertFalse( Files.exists( tempFile( keyFile ) ) );
+    }
+
+    @Test
+    void keepsExistingKeyFileWhenGenerationFails() throws IOException {
+        final Path keyFile = folder.resolve( "key" );
+        final byte[] oldKey = XorKeyGenerator.generateKey( 100 );
+        Files.write( keyFile, oldKey );
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows( IOException.class, () -> new XorKeyGenerator( 4 ).generate( keyFile, 8L * BLOCK_SIZE ) );
+        }
+        finally {
+            Thread.interrupted();
+        }
+
+        assertArrayEquals( oldKey, Files.readAllBytes( keyFile ) );
+        assertFalse( Files.exists( tempFile( keyFile ) ) );
+    }
+
+    @Test
+    void generatesKeyOnTheHeap() throws IOException {
+        final byte[] key = XorKeyGenerator.generateKey( 32 );
+
+        assertEquals( 32, key.length );
+        assertFalse( Arrays.equals( key, XorKeyGenerator.generateKey( 32 ) ) );
+    }
+
+    @Test
+    void rejectsUnsupportedThreadCount() {
+        assertThrows( IllegalArgumentException.class, () -> new XorKeyGenerator( 0 ) );
+    }
+
+    @Nonnull
+    private static Path tempFile( @Nonnull final Path keyFile ) {
+        return keyFile.resolveSibling( keyFile.getFileName() + ".tmp" );
+    }
+
+}